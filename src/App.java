@@ -1,8 +1,43 @@
 import edu.ccrm.cli.MainMenu;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 
 public class App {
     public static void main(String[] args) {
         MainMenu mainMenu = new MainMenu();
+        if (args.length > 0 && args[0].equals("--batch")) {
+            // Headless mode: java App --batch [script file, or - for stdin]
+            System.exit(runBatch(mainMenu, args.length > 1 ? args[1] : "-"));
+        }
+        if (args.length > 0 && args[0].equals("--serve")) {
+            // HTTP API mode: java App --serve [port, default 8080]
+            try {
+                mainMenu.serve(args.length > 1 ? Integer.parseInt(args[1]) : 8080);
+            } catch (IOException | NumberFormatException e) {
+                System.err.println("Could not start the API server: " + e.getMessage());
+                System.exit(2);
+            }
+            return;
+        }
         mainMenu.run();
     }
-}
\ No newline at end of file
+
+    private static int runBatch(MainMenu mainMenu, String script) {
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 64 * 1024);
+        try (BufferedReader in = script.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(script), StandardCharsets.UTF_8)) {
+            return mainMenu.runBatch(in, out) == 0 ? 0 : 1;
+        } catch (IOException e) {
+            System.err.println("Batch failed: " + e.getMessage());
+            return 2;
+        }
+    }
+}
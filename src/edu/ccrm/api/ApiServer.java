@@ -0,0 +1,526 @@
+package edu.ccrm.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.exceptions.DuplicateEnrollmentException;
+import edu.ccrm.exceptions.MaxCreditLimitExceededException;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.EnrollmentService;
+import edu.ccrm.service.StudentService;
+import edu.ccrm.service.TranscriptService;
+import edu.ccrm.util.Validators;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Embedded HTTP/JSON API over the service layer, built on the JDK's own
+ * com.sun.net.httpserver so it needs no libraries.
+ *
+ * Requests are handled on virtual threads when the JDK has them (21 and
+ * later); on older JDKs a fixed pool of platform threads is used instead.
+ * The server's selector thread holds idle connections without tying up a
+ * handler thread, so thousands of open connections cost little either way.
+ *
+ * Endpoints (bodies are flat JSON objects):
+ * <pre>
+ *   GET    /students[?status=ACTIVE|&amp;email=...]   POST /students {regNo, fullName, email}
+ *   GET    /students/{regNo}                        PUT  /students/{regNo}/email {email}
+ *   POST   /students/{regNo}/deactivate
+ *   GET    /students/{regNo}/enrollments            GET  /students/{regNo}/gpa
+ *   GET    /students/{regNo}/transcript             (text/plain)
+ *   GET    /courses[?instructor=|department=|semester=]
+ *   POST   /courses {code, title, credits, instructor, semester, department}
+ *   GET    /courses/{code}                          PUT  /courses/{code}/instructor {instructor}
+ *   GET    /courses/{code}/enrollments
+ *   POST   /enrollments {regNo, courseCode}
+ *   DELETE /enrollments/{regNo}/{courseCode}
+ *   PUT    /enrollments/{regNo}/{courseCode}/grade {grade}
+ * </pre>
+ * Errors are returned as {"error": message} with status 400 (bad input),
+ * 404 (not found), 405 (wrong method), 409 (duplicate) or 422 (credit limit).
+ */
+public class ApiServer {
+    // Handler threads on JDKs without virtual threads.
+    private static final int FALLBACK_THREADS = 256;
+    private static final int BACKLOG = 4096;
+
+    private final StudentService studentService;
+    private final CourseService courseService;
+    private final EnrollmentService enrollmentService;
+    private final TranscriptService transcriptService;
+    private HttpServer server;
+    private ExecutorService executor;
+    private boolean virtualThreads;
+
+    /**
+     * An error that maps directly to an HTTP status.
+     */
+    private static class ApiException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    /**
+     * A finished response: status, content type and body.
+     */
+    private static class Response {
+        final int status;
+        final String contentType;
+        final String body;
+
+        Response(int status, String contentType, String body) {
+            this.status = status;
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        static Response json(int status, CharSequence body) {
+            return new Response(status, "application/json; charset=utf-8", body.toString());
+        }
+    }
+
+    public ApiServer(StudentService studentService, CourseService courseService,
+                     EnrollmentService enrollmentService, TranscriptService transcriptService) {
+        this.studentService = studentService;
+        this.courseService = courseService;
+        this.enrollmentService = enrollmentService;
+        this.transcriptService = transcriptService;
+    }
+
+    /**
+     * Starts listening on localhost.
+     * @param port The port, or 0 to pick a free one.
+     */
+    public void start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", port), BACKLOG);
+        executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests, gives running ones up to two seconds to finish and shuts the handler threads down.
+     */
+    public void stop() {
+        if (server != null) {
+            server.stop(2);
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * @return The port the server is listening on.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * @return Whether requests run on virtual threads or on the fallback pool.
+     */
+    public String getExecutorDescription() {
+        return virtualThreads ? "virtual threads" : FALLBACK_THREADS + " platform threads";
+    }
+
+    /**
+     * Private helper that creates the request executor: a virtual thread per
+     * request where the JDK supports it. It is looked up reflectively so the
+     * code still compiles and runs on JDK 17.
+     */
+    private ExecutorService newRequestExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            ExecutorService virtual = (ExecutorService) factory.invoke(null);
+            virtualThreads = true;
+            return virtual;
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            // No virtual threads (or only as a disabled preview); use a fixed pool.
+            AtomicInteger counter = new AtomicInteger();
+            virtualThreads = false;
+            return new ThreadPoolExecutor(FALLBACK_THREADS, FALLBACK_THREADS, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), runnable -> {
+                        Thread thread = new Thread(runnable, "ccrm-api-" + counter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+    }
+
+    /**
+     * Handles one exchange: routes it, and turns exceptions into error responses.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        Response response;
+        try {
+            response = route(exchange);
+        } catch (ApiException e) {
+            response = error(e.status, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            response = error(400, e.getMessage());
+        } catch (DuplicateEnrollmentException e) {
+            response = error(409, e.getMessage());
+        } catch (MaxCreditLimitExceededException e) {
+            response = error(422, e.getMessage());
+        } catch (UncheckedIOException | IOException e) {
+            response = error(500, e.getMessage());
+        } catch (RuntimeException e) {
+            response = error(500, "Internal error: " + e);
+        }
+        try {
+            byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", response.contentType);
+            exchange.sendResponseHeaders(response.status, body.length == 0 ? -1 : body.length);
+            if (body.length > 0) {
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Private helper that dispatches on the method and path segments.
+     */
+    private Response route(HttpExchange exchange)
+            throws IOException, DuplicateEnrollmentException, MaxCreditLimitExceededException {
+        String method = exchange.getRequestMethod();
+        List<String> path = segments(exchange.getRequestURI().getRawPath());
+        Map<String, String> query = queryParameters(exchange.getRequestURI().getRawQuery());
+        if (path.isEmpty()) {
+            throw new ApiException(404, "Unknown resource");
+        }
+        switch (path.get(0)) {
+            case "students":
+                return students(method, path, query, exchange);
+            case "courses":
+                return courses(method, path, query, exchange);
+            case "enrollments":
+                return enrollments(method, path, exchange);
+            default:
+                throw new ApiException(404, "Unknown resource: /" + path.get(0));
+        }
+    }
+
+    private Response students(String method, List<String> path, Map<String, String> query, HttpExchange exchange)
+            throws IOException {
+        if (path.size() == 1) {
+            if (method.equals("GET")) {
+                List<Student> students;
+                if (query.containsKey("status")) {
+                    students = studentService.findStudentsByStatus(Student.Status.valueOf(query.get("status").toUpperCase()));
+                } else if (query.containsKey("email")) {
+                    students = studentService.findStudentsByEmail(query.get("email"));
+                } else {
+                    students = studentService.listStudents();
+                }
+                StringBuilder out = new StringBuilder(students.size() * 128 + 2).append('[');
+                for (int i = 0; i < students.size(); i++) {
+                    if (i > 0) {
+                        out.append(',');
+                    }
+                    appendStudent(out, students.get(i));
+                }
+                return Response.json(200, out.append(']'));
+            }
+            if (method.equals("POST")) {
+                Map<String, Object> body = readBody(exchange);
+                String regNo = required(body, "regNo");
+                String email = required(body, "email");
+                if (!Validators.isValidEmail(email)) {
+                    throw new IllegalArgumentException("Invalid email format.");
+                }
+                try {
+                    studentService.addStudent(regNo, required(body, "fullName"), email);
+                } catch (IllegalArgumentException e) {
+                    throw new ApiException(409, e.getMessage());
+                }
+                return Response.json(201, appendStudent(new StringBuilder(), findStudent(regNo)));
+            }
+            throw methodNotAllowed(method);
+        }
+
+        Student student = findStudent(path.get(1));
+        String action = path.size() > 2 ? path.get(2) : "";
+        if (path.size() > 3) {
+            throw new ApiException(404, "Unknown resource");
+        }
+        switch (method + " " + action) {
+            case "GET ":
+                return Response.json(200, appendStudent(new StringBuilder(), student));
+            case "PUT email": {
+                String email = required(readBody(exchange), "email");
+                if (!Validators.isValidEmail(email)) {
+                    throw new IllegalArgumentException("Invalid email format.");
+                }
+                studentService.updateStudentEmail(student.getRegNo(), email);
+                return Response.json(200, appendStudent(new StringBuilder(), student));
+            }
+            case "POST deactivate":
+                studentService.deactivateStudent(student.getRegNo());
+                return Response.json(200, appendStudent(new StringBuilder(), student));
+            case "GET enrollments":
+                return enrollmentList(enrollmentService.getEnrollmentsForStudent(student.getRegNo()));
+            case "GET gpa": {
+                StringBuilder out = new StringBuilder("{\"regNo\":");
+                Json.quote(out, student.getRegNo()).append(",\"gpa\":")
+                        .append(String.format("%.2f", transcriptService.computeGPA(student.getRegNo()))).append('}');
+                return Response.json(200, out);
+            }
+            case "GET transcript":
+                return new Response(200, "text/plain; charset=utf-8", transcriptService.generateTranscriptView(
+                        student.getFullName(), enrollmentService.getEnrollmentsForStudent(student.getRegNo())));
+            default:
+                throw action.isEmpty() || isStudentAction(action) ? methodNotAllowed(method) : new ApiException(404, "Unknown resource");
+        }
+    }
+
+    private Response courses(String method, List<String> path, Map<String, String> query, HttpExchange exchange)
+            throws IOException {
+        if (path.size() == 1) {
+            if (method.equals("GET")) {
+                List<Course> courses;
+                if (query.containsKey("instructor")) {
+                    courses = courseService.filterCoursesByInstructor(query.get("instructor"));
+                } else if (query.containsKey("department")) {
+                    courses = courseService.filterCoursesByDepartment(query.get("department"));
+                } else if (query.containsKey("semester")) {
+                    courses = courseService.filterCoursesBySemester(Semester.valueOf(query.get("semester").toUpperCase()));
+                } else {
+                    courses = courseService.listCourses();
+                }
+                StringBuilder out = new StringBuilder(courses.size() * 160 + 2).append('[');
+                for (int i = 0; i < courses.size(); i++) {
+                    if (i > 0) {
+                        out.append(',');
+                    }
+                    appendCourse(out, courses.get(i));
+                }
+                return Response.json(200, out.append(']'));
+            }
+            if (method.equals("POST")) {
+                Map<String, Object> body = readBody(exchange);
+                Object credits = body.get("credits");
+                if (!(credits instanceof Long)) {
+                    throw new IllegalArgumentException("credits must be a whole number");
+                }
+                Course course = new Course.Builder()
+                        .setCode(required(body, "code"))
+                        .setTitle(required(body, "title"))
+                        .setCredits(((Long) credits).intValue())
+                        .setInstructor(required(body, "instructor"))
+                        .setSemester(Semester.valueOf(required(body, "semester").toUpperCase()))
+                        .setDepartment(required(body, "department"))
+                        .build();
+                try {
+                    courseService.addCourse(course);
+                } catch (IllegalArgumentException e) {
+                    throw new ApiException(409, e.getMessage());
+                }
+                return Response.json(201, appendCourse(new StringBuilder(), course));
+            }
+            throw methodNotAllowed(method);
+        }
+
+        Course course = findCourse(path.get(1));
+        String action = path.size() > 2 ? path.get(2) : "";
+        if (path.size() > 3) {
+            throw new ApiException(404, "Unknown resource");
+        }
+        switch (method + " " + action) {
+            case "GET ":
+                return Response.json(200, appendCourse(new StringBuilder(), course));
+            case "PUT instructor":
+                courseService.updateCourseInstructor(course.getCode(), required(readBody(exchange), "instructor"));
+                return Response.json(200, appendCourse(new StringBuilder(), findCourse(course.getCode())));
+            case "GET enrollments":
+                return enrollmentList(enrollmentService.getEnrollmentsForCourse(course.getCode()));
+            default:
+                throw action.isEmpty() || action.equals("instructor") || action.equals("enrollments")
+                        ? methodNotAllowed(method) : new ApiException(404, "Unknown resource");
+        }
+    }
+
+    private Response enrollments(String method, List<String> path, HttpExchange exchange)
+            throws IOException, DuplicateEnrollmentException, MaxCreditLimitExceededException {
+        if (path.size() == 1) {
+            if (!method.equals("POST")) {
+                throw methodNotAllowed(method);
+            }
+            Map<String, Object> body = readBody(exchange);
+            String regNo = findStudent(required(body, "regNo")).getRegNo();
+            String courseCode = findCourse(required(body, "courseCode")).getCode();
+            enrollmentService.enrollStudent(regNo, courseCode);
+            return Response.json(201, appendEnrollment(new StringBuilder(), findEnrollment(regNo, courseCode)));
+        }
+        if (path.size() < 3 || path.size() > 4) {
+            throw new ApiException(404, "Unknown resource");
+        }
+        String regNo = findStudent(path.get(1)).getRegNo();
+        String courseCode = findCourse(path.get(2)).getCode();
+        String action = path.size() > 3 ? path.get(3) : "";
+        switch (method + " " + action) {
+            case "GET ":
+                return Response.json(200, appendEnrollment(new StringBuilder(), findEnrollment(regNo, courseCode)));
+            case "DELETE ":
+                findEnrollment(regNo, courseCode);
+                enrollmentService.unenrollStudent(regNo, courseCode);
+                return Response.json(200, new StringBuilder("{\"deleted\":true}"));
+            case "PUT grade": {
+                Grade grade = Grade.valueOf(required(readBody(exchange), "grade").toUpperCase());
+                try {
+                    enrollmentService.recordGrade(regNo, courseCode, grade);
+                } catch (IllegalArgumentException e) {
+                    throw new ApiException(404, e.getMessage());
+                }
+                return Response.json(200, appendEnrollment(new StringBuilder(), findEnrollment(regNo, courseCode)));
+            }
+            default:
+                throw action.isEmpty() || action.equals("grade") ? methodNotAllowed(method) : new ApiException(404, "Unknown resource");
+        }
+    }
+
+    private Student findStudent(String regNo) {
+        return studentService.findStudentByRegNo(regNo)
+                .orElseThrow(() -> new ApiException(404, "Student not found with registration number: " + regNo));
+    }
+
+    private Course findCourse(String code) {
+        return courseService.findCourseByCode(code)
+                .orElseThrow(() -> new ApiException(404, "Course not found with code: " + code));
+    }
+
+    private Enrollment findEnrollment(String regNo, String courseCode) {
+        for (Enrollment e : enrollmentService.getEnrollmentsForStudent(regNo)) {
+            if (e.getCourse().getCode().equals(courseCode)) {
+                return e;
+            }
+        }
+        throw new ApiException(404, "Enrollment record not found.");
+    }
+
+    private static boolean isStudentAction(String action) {
+        switch (action) {
+            case "email": case "deactivate": case "enrollments": case "gpa": case "transcript":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static ApiException methodNotAllowed(String method) {
+        return new ApiException(405, "Method " + method + " is not allowed here");
+    }
+
+    private Response enrollmentList(List<Enrollment> enrollments) {
+        StringBuilder out = new StringBuilder(enrollments.size() * 96 + 2).append('[');
+        for (int i = 0; i < enrollments.size(); i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            appendEnrollment(out, enrollments.get(i));
+        }
+        return Response.json(200, out.append(']'));
+    }
+
+    private static StringBuilder appendStudent(StringBuilder out, Student s) {
+        out.append("{\"regNo\":");
+        Json.quote(out, s.getRegNo()).append(",\"fullName\":");
+        Json.quote(out, s.getFullName()).append(",\"email\":");
+        Json.quote(out, s.getEmail()).append(",\"status\":");
+        Json.quote(out, s.getStatus()).append(",\"joinedDate\":");
+        return Json.quote(out, s.getJoinedDate()).append('}');
+    }
+
+    private static StringBuilder appendCourse(StringBuilder out, Course c) {
+        out.append("{\"code\":");
+        Json.quote(out, c.getCode()).append(",\"title\":");
+        Json.quote(out, c.getTitle()).append(",\"credits\":").append(c.getCredits()).append(",\"instructor\":");
+        Json.quote(out, c.getInstructor()).append(",\"semester\":");
+        Json.quote(out, c.getSemester()).append(",\"department\":");
+        return Json.quote(out, c.getDepartment()).append('}');
+    }
+
+    private static StringBuilder appendEnrollment(StringBuilder out, Enrollment e) {
+        out.append("{\"regNo\":");
+        Json.quote(out, e.getStudent().getRegNo()).append(",\"courseCode\":");
+        Json.quote(out, e.getCourse().getCode()).append(",\"grade\":");
+        Json.quote(out, e.getGrade()).append(",\"enrollmentDate\":");
+        return Json.quote(out, e.getEnrollmentDate()).append('}');
+    }
+
+    private static Response error(int status, String message) {
+        StringBuilder out = new StringBuilder("{\"error\":");
+        return Response.json(status, Json.quote(out, message).append('}'));
+    }
+
+    private static Map<String, Object> readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return Json.parseObject(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Private helper that reads a required string member of a request body.
+     */
+    private static String required(Map<String, Object> body, String name) {
+        Object value = body.get(name);
+        if (!(value instanceof String) || ((String) value).isBlank()) {
+            throw new IllegalArgumentException("Missing or empty field: " + name);
+        }
+        return ((String) value).trim();
+    }
+
+    private static List<String> segments(String rawPath) {
+        List<String> segments = new ArrayList<>();
+        for (String part : rawPath.split("/")) {
+            if (!part.isEmpty()) {
+                segments.add(URLDecoder.decode(part, StandardCharsets.UTF_8));
+            }
+        }
+        return segments;
+    }
+
+    private static Map<String, String> queryParameters(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+}
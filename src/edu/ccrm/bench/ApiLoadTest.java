@@ -0,0 +1,124 @@
+package edu.ccrm.bench;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load-test client for the HTTP API (App --serve). It keeps a fixed number of
+ * requests in flight at once and reports throughput, latency percentiles and
+ * a count of responses per status code.
+ *
+ * The request mix is 60% student lookups, 20% GPA reads, 10% enrollment
+ * lists and 10% new enrollments for random pairs. Enrollment conflicts (409)
+ * and credit-limit refusals (422) are normal answers, not errors; only
+ * failed connections and 5xx responses count as errors.
+ *
+ * Registration numbers and course codes follow DataGenerator, so start the
+ * server on a data set made by DataGenerator with the same size argument.
+ *
+ * Usage: java -cp ../bin edu.ccrm.bench.ApiLoadTest [baseUrl] [concurrency] [requests] [size]
+ */
+public class ApiLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+        int requests = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+        int enrollmentRows = DataGenerator.parseSize(args.length > 3 ? args[3] : "10k");
+        int students = DataGenerator.studentCount(enrollmentRows);
+        int courses = DataGenerator.courseCount(enrollmentRows);
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        Random random = new Random(DataGenerator.DEFAULT_SEED);
+        Semaphore inFlight = new Semaphore(concurrency);
+        CountDownLatch done = new CountDownLatch(requests);
+        long[] latencies = new long[requests];
+        Map<Integer, AtomicInteger> statusCounts = new TreeMap<>();
+        AtomicInteger errors = new AtomicInteger();
+        for (int code : new int[]{0, 200, 201, 400, 404, 409, 422, 500}) {
+            statusCounts.put(code, new AtomicInteger());
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            HttpRequest request = nextRequest(random, baseUrl, students, courses);
+            inFlight.acquire();
+            int slot = i;
+            long sent = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+                latencies[slot] = System.nanoTime() - sent;
+                int status = failure == null ? response.statusCode() : 0;
+                AtomicInteger count = statusCounts.get(status);
+                if (count != null) {
+                    count.incrementAndGet();
+                }
+                if (status == 0 || status >= 500) {
+                    errors.incrementAndGet();
+                }
+                inFlight.release();
+                done.countDown();
+            });
+        }
+        done.await();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Arrays.sort(latencies);
+        System.out.println(String.format("%,d requests, %,d in flight: %.2f s, %,.0f req/s, %,d errors",
+                requests, concurrency, seconds, requests / seconds, errors.get()));
+        System.out.println(String.format("latency ms: p50 %.2f  p90 %.2f  p99 %.2f  p99.9 %.2f  max %.2f",
+                percentile(latencies, 0.50), percentile(latencies, 0.90), percentile(latencies, 0.99),
+                percentile(latencies, 0.999), latencies[latencies.length - 1] / 1e6));
+        StringBuilder statuses = new StringBuilder("status:");
+        for (Map.Entry<Integer, AtomicInteger> entry : statusCounts.entrySet()) {
+            if (entry.getValue().get() > 0) {
+                statuses.append(String.format("  %s=%,d", entry.getKey() == 0 ? "failed" : entry.getKey(), entry.getValue().get()));
+            }
+        }
+        System.out.println(statuses);
+    }
+
+    /**
+     * Private helper that picks the next request from the mix.
+     */
+    private static HttpRequest nextRequest(Random random, String baseUrl, int students, int courses) {
+        String regNo = DataGenerator.regNo(random.nextInt(students));
+        int pick = random.nextInt(100);
+        if (pick < 60) {
+            return get(baseUrl + "/students/" + regNo);
+        }
+        if (pick < 80) {
+            return get(baseUrl + "/students/" + regNo + "/gpa");
+        }
+        if (pick < 90) {
+            return get(baseUrl + "/students/" + regNo + "/enrollments");
+        }
+        String body = "{\"regNo\":\"" + regNo + "\",\"courseCode\":\""
+                + DataGenerator.courseCode(random.nextInt(courses)) + "\"}";
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/enrollments"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static HttpRequest get(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).GET().build();
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(fraction * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
@@ -0,0 +1,92 @@
+package edu.ccrm.bench;
+
+/**
+ * Minimal benchmark harness in the style of JMH's average-time mode.
+ * The project is compiled with plain javac and has no third-party libraries,
+ * so instead of JMH each benchmark runs a few untimed warmup iterations
+ * followed by measured iterations, and reports the mean time per operation
+ * with its standard deviation. Results are fed to a sink so the JIT cannot
+ * optimise the measured work away.
+ */
+public class BenchmarkRunner {
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASURED_ITERATIONS = 5;
+
+    private static volatile long sink;
+
+    /**
+     * One benchmarked operation. Called opsPerIteration times per iteration with the index of the call.
+     */
+    public interface Operation {
+        Object run(int index) throws Exception;
+    }
+
+    /**
+     * Builds a fresh operation before every iteration, outside the timed region.
+     * Used when the operation changes state, e.g. enrolling students.
+     */
+    public interface Setup {
+        Operation prepare() throws Exception;
+    }
+
+    public static void printHeader() {
+        System.out.println(String.format("%-52s | %12s | %10s | %14s", "Benchmark", "ns/op", "+/-", "ops/s"));
+        System.out.println("-----------------------------------------------------------------------------------------------------");
+    }
+
+    /**
+     * Runs a benchmark whose operation can be repeated without resetting any state.
+     */
+    public static void run(String name, int opsPerIteration, Operation operation) throws Exception {
+        run(name, opsPerIteration, () -> operation);
+    }
+
+    /**
+     * Runs a benchmark, calling setup before each warmup and measured iteration.
+     */
+    public static void run(String name, int opsPerIteration, Setup setup) throws Exception {
+        measure(name, opsPerIteration, 1, setup);
+    }
+
+    /**
+     * Runs a bulk benchmark where each iteration is one call that processes
+     * rowsPerCall rows (e.g. a whole CSV import), and reports time per row.
+     */
+    public static void runPerRow(String name, long rowsPerCall, Setup setup) throws Exception {
+        measure(name + " (per row)", 1, rowsPerCall, setup);
+    }
+
+    private static void measure(String name, int opsPerIteration, long unitsPerOp, Setup setup) throws Exception {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            runIteration(setup.prepare(), opsPerIteration);
+        }
+        double[] nanosPerOp = new double[MEASURED_ITERATIONS];
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            nanosPerOp[i] = (double) runIteration(setup.prepare(), opsPerIteration) / (opsPerIteration * unitsPerOp);
+        }
+
+        double mean = 0;
+        for (double value : nanosPerOp) {
+            mean += value;
+        }
+        mean /= nanosPerOp.length;
+        double variance = 0;
+        for (double value : nanosPerOp) {
+            variance += (value - mean) * (value - mean);
+        }
+        double stdDev = Math.sqrt(variance / nanosPerOp.length);
+        System.out.println(String.format("%-52s | %12.1f | %10.1f | %,14.0f", name, mean, stdDev, 1e9 / mean));
+    }
+
+    private static long runIteration(Operation operation, int opsPerIteration) throws Exception {
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < opsPerIteration; i++) {
+            Object result = operation.run(i);
+            checksum += result == null ? 0 : result.hashCode();
+        }
+        long elapsed = System.nanoTime() - start;
+        sink += checksum;
+        return elapsed;
+    }
+}
@@ -0,0 +1,168 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.io.CsvWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * Writes a deterministic synthetic data set (students.csv, courses.csv and
+ * enrollments.csv) for benchmarking. The same size and seed always produce
+ * byte-identical files, so benchmark results can be reproduced.
+ *
+ * Every student gets four enrollments in distinct courses of one semester,
+ * and course credits are between 2 and 4, so every generated enrollment
+ * passes the 18-credit semester limit.
+ *
+ * Usage: java -cp ../bin edu.ccrm.bench.DataGenerator &lt;10k|1m|10m|rows&gt; [outputDir] [seed]
+ */
+public class DataGenerator {
+    public static final long DEFAULT_SEED = 42L;
+    public static final int ENROLLMENTS_PER_STUDENT = 4;
+
+    private static final String[] FIRST_NAMES = {
+        "Aarav", "Vivaan", "Aditya", "Vihaan", "Arjun", "Sai", "Reyansh", "Ayaan", "Krishna", "Ishaan",
+        "Ananya", "Diya", "Aadhya", "Saanvi", "Myra", "Zara", "Kiara", "Anika", "Navya", "Riya"
+    };
+    private static final String[] LAST_NAMES = {
+        "Sharma", "Patel", "Gupta", "Kumar", "Singh", "Reddy", "Verma", "Mehta", "Shah", "Joshi",
+        "Nair", "Iyer", "Menon", "Rao", "Pillai", "Krishnan", "Das", "Sen", "Roy", "Ghosh"
+    };
+    private static final String[] DEPARTMENTS = {
+        "Computer Science", "Data Science", "Mathematics", "Electronics", "Biology",
+        "Engineering", "Management", "Research", "Health Informatics", "Cloud Computing"
+    };
+    private static final String[] TITLE_WORDS = {
+        "Introduction to", "Advanced", "Applied", "Principles of", "Foundations of", "Topics in"
+    };
+    private static final String[] SUBJECTS = {
+        "Algorithms", "Networks", "Machine Learning", "Linear Algebra", "Genetics", "Databases",
+        "Signals, Systems and Control", "Economics", "Statistics", "Operating Systems"
+    };
+    private static final Grade[] GRADES = Grade.values();
+    private static final LocalDate FIRST_ENROLLMENT_DATE = LocalDate.of(2024, 1, 1);
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: DataGenerator <10k|1m|10m|rows> [outputDir] [seed]");
+            return;
+        }
+        int rows = parseSize(args[0]);
+        Path outputDir = Paths.get(args.length > 1 ? args[1] : "data");
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_SEED;
+
+        long start = System.nanoTime();
+        generate(outputDir, rows, seed);
+        System.out.println(String.format("Generated %,d enrollments for %,d students and %,d courses in %s (%.2f s)",
+                rows, studentCount(rows), courseCount(rows), outputDir.toAbsolutePath(),
+                (System.nanoTime() - start) / 1e9));
+    }
+
+    /**
+     * Parses a size such as "10k", "1m", "10m" or a plain number of enrollment rows.
+     */
+    public static int parseSize(String size) {
+        String value = size.trim().toLowerCase();
+        if (value.endsWith("k")) {
+            return Integer.parseInt(value.substring(0, value.length() - 1)) * 1_000;
+        }
+        if (value.endsWith("m")) {
+            return Integer.parseInt(value.substring(0, value.length() - 1)) * 1_000_000;
+        }
+        return Integer.parseInt(value);
+    }
+
+    public static int studentCount(int enrollmentRows) {
+        return Math.max(1, (enrollmentRows + ENROLLMENTS_PER_STUDENT - 1) / ENROLLMENTS_PER_STUDENT);
+    }
+
+    public static int courseCount(int enrollmentRows) {
+        // Enough courses per semester that four distinct picks are always possible.
+        return Math.max(30, Math.min(30_000, enrollmentRows / 500));
+    }
+
+    public static String regNo(int index) {
+        return String.format("GEN%08d", index);
+    }
+
+    public static String courseCode(int index) {
+        return String.format("CRS%06d", index);
+    }
+
+    /**
+     * Writes the three CSV files for the given number of enrollment rows.
+     * @param outputDir The directory to write into; created if missing.
+     * @param enrollmentRows The number of enrollment rows to generate.
+     * @param seed The random seed.
+     */
+    public static void generate(Path outputDir, int enrollmentRows, long seed) throws IOException {
+        Files.createDirectories(outputDir);
+        Random random = new Random(seed);
+        int students = studentCount(enrollmentRows);
+        int courses = courseCount(enrollmentRows);
+
+        try (CsvWriter writer = newWriter(outputDir.resolve("courses.csv"))) {
+            writer.writeRecord("code", "title", "credits", "instructor", "semester", "department");
+            for (int i = 0; i < courses; i++) {
+                int credits = 2 + random.nextInt(3);
+                writer.writeRecord(courseCode(i),
+                        TITLE_WORDS[random.nextInt(TITLE_WORDS.length)] + " " + SUBJECTS[random.nextInt(SUBJECTS.length)],
+                        credits,
+                        "Dr. " + LAST_NAMES[random.nextInt(LAST_NAMES.length)] + " " + (i % 200),
+                        semesterOf(i),
+                        DEPARTMENTS[random.nextInt(DEPARTMENTS.length)]);
+            }
+        }
+
+        try (CsvWriter writer = newWriter(outputDir.resolve("students.csv"))) {
+            writer.writeRecord("regNo", "fullName", "email");
+            for (int i = 0; i < students; i++) {
+                String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+                String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+                writer.writeRecord(regNo(i), first + " " + last,
+                        first.toLowerCase() + "." + last.toLowerCase() + i + "@example.edu");
+            }
+        }
+
+        int semesters = Semester.values().length;
+        int coursesPerSemester = courses / semesters;
+        try (CsvWriter writer = newWriter(outputDir.resolve("enrollments.csv"))) {
+            writer.writeRecord("regNo", "courseCode", "grade", "enrollmentDate");
+            int[] picked = new int[ENROLLMENTS_PER_STUDENT];
+            int written = 0;
+            for (int s = 0; written < enrollmentRows; s++) {
+                // Courses with index i belong to semester i % semesters, so pick from one residue class.
+                int semester = random.nextInt(semesters);
+                for (int k = 0; k < ENROLLMENTS_PER_STUDENT && written < enrollmentRows; k++) {
+                    int course;
+                    boolean duplicate;
+                    do {
+                        course = random.nextInt(coursesPerSemester) * semesters + semester;
+                        duplicate = false;
+                        for (int j = 0; j < k; j++) {
+                            duplicate |= picked[j] == course;
+                        }
+                    } while (duplicate);
+                    picked[k] = course;
+                    writer.writeRecord(regNo(s), courseCode(course), GRADES[random.nextInt(GRADES.length)],
+                            FIRST_ENROLLMENT_DATE.plusDays(random.nextInt(365)));
+                    written++;
+                }
+            }
+        }
+    }
+
+    private static Semester semesterOf(int courseIndex) {
+        return Semester.values()[courseIndex % Semester.values().length];
+    }
+
+    private static CsvWriter newWriter(Path file) throws IOException {
+        return new CsvWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8));
+    }
+}
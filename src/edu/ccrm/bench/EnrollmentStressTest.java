@@ -0,0 +1,193 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.exceptions.DuplicateEnrollmentException;
+import edu.ccrm.exceptions.MaxCreditLimitExceededException;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.EnrollmentService;
+import edu.ccrm.service.StudentService;
+import edu.ccrm.service.TranscriptService;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stress test for the concurrent enrollment path.
+ *
+ * Many threads enroll, unenroll and grade a deliberately small set of students
+ * at random, so the same student is hit from several threads at once. While
+ * that runs, a checker thread keeps reading students' enrollments, and at the
+ * end every student is verified: no semester above 18 credits, no duplicate
+ * enrollments, course rosters consistent with student lists, and running GPA
+ * totals matching a fresh computation. Exits with status 1 on any violation.
+ *
+ * Usage: java -cp ../bin edu.ccrm.bench.EnrollmentStressTest [threads] [opsPerThread]
+ */
+public class EnrollmentStressTest {
+    private static final int STUDENTS = 200;
+    private static final int COURSES = 60;
+    private static final int MAX_CREDITS = 18;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Math.max(8, Runtime.getRuntime().availableProcessors() * 2);
+        int opsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+
+        StudentService studentService = new StudentService();
+        CourseService courseService = new CourseService();
+        EnrollmentService enrollmentService = new EnrollmentService(studentService, courseService);
+        TranscriptService transcriptService = new TranscriptService();
+        enrollmentService.addListener(transcriptService);
+
+        Random setupRandom = new Random(DataGenerator.DEFAULT_SEED);
+        for (int i = 0; i < STUDENTS; i++) {
+            studentService.addStudent(DataGenerator.regNo(i), "Student " + i, "student" + i + "@example.edu");
+        }
+        for (int i = 0; i < COURSES; i++) {
+            courseService.addCourse(new Course.Builder()
+                    .setCode(DataGenerator.courseCode(i))
+                    .setTitle("Course " + i)
+                    .setCredits(2 + setupRandom.nextInt(4))
+                    .setInstructor("Dr. Stress")
+                    .setSemester(Semester.values()[i % 2])
+                    .setDepartment("Testing")
+                    .build());
+        }
+
+        AtomicLong enrolled = new AtomicLong();
+        AtomicLong rejectedDuplicate = new AtomicLong();
+        AtomicLong rejectedCredits = new AtomicLong();
+        AtomicInteger violations = new AtomicInteger();
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long seed = DataGenerator.DEFAULT_SEED + t;
+            Thread worker = new Thread(() -> {
+                Random random = new Random(seed);
+                Grade[] grades = Grade.values();
+                awaitQuietly(start);
+                for (int i = 0; i < opsPerThread; i++) {
+                    String regNo = DataGenerator.regNo(random.nextInt(STUDENTS));
+                    String courseCode = DataGenerator.courseCode(random.nextInt(COURSES));
+                    int action = random.nextInt(10);
+                    try {
+                        if (action < 6) {
+                            enrollmentService.enrollStudent(regNo, courseCode);
+                            enrolled.incrementAndGet();
+                        } else if (action < 8) {
+                            enrollmentService.unenrollStudent(regNo, courseCode);
+                        } else {
+                            enrollmentService.recordGrade(regNo, courseCode, grades[random.nextInt(grades.length)]);
+                        }
+                    } catch (DuplicateEnrollmentException e) {
+                        rejectedDuplicate.incrementAndGet();
+                    } catch (MaxCreditLimitExceededException e) {
+                        rejectedCredits.incrementAndGet();
+                    } catch (IllegalArgumentException e) {
+                        // Grading an enrollment that does not exist; expected at random.
+                    }
+                }
+            }, "stress-" + t);
+            workers.add(worker);
+            worker.start();
+        }
+
+        Thread checker = new Thread(() -> {
+            Random random = new Random(DataGenerator.DEFAULT_SEED - 1);
+            while (running.get()) {
+                String regNo = DataGenerator.regNo(random.nextInt(STUDENTS));
+                String problem = checkStudent(enrollmentService.getEnrollmentsForStudent(regNo));
+                if (problem != null) {
+                    System.out.println("VIOLATION while running, " + regNo + ": " + problem);
+                    violations.incrementAndGet();
+                }
+            }
+        }, "stress-checker");
+        checker.start();
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        running.set(false);
+        checker.join();
+
+        // Final verification of every student and course.
+        int rosterTotal = 0;
+        for (int i = 0; i < COURSES; i++) {
+            rosterTotal += enrollmentService.getEnrollmentsForCourse(DataGenerator.courseCode(i)).size();
+        }
+        int studentTotal = 0;
+        for (int i = 0; i < STUDENTS; i++) {
+            String regNo = DataGenerator.regNo(i);
+            List<Enrollment> enrollments = enrollmentService.getEnrollmentsForStudent(regNo);
+            studentTotal += enrollments.size();
+            String problem = checkStudent(enrollments);
+            if (problem == null && Math.abs(transcriptService.computeGPA(regNo) - transcriptService.computeGPA(enrollments)) > 1e-9) {
+                problem = "running GPA " + transcriptService.computeGPA(regNo) + " != recomputed " + transcriptService.computeGPA(enrollments);
+            }
+            if (problem != null) {
+                System.out.println("VIOLATION at end, " + regNo + ": " + problem);
+                violations.incrementAndGet();
+            }
+        }
+        int allTotal = enrollmentService.getAllEnrollments().size();
+        if (rosterTotal != studentTotal || allTotal != studentTotal) {
+            System.out.println("VIOLATION: index sizes disagree (students=" + studentTotal
+                    + ", courses=" + rosterTotal + ", all=" + allTotal + ")");
+            violations.incrementAndGet();
+        }
+
+        long totalOps = (long) threads * opsPerThread;
+        System.out.println(String.format("%d threads, %,d ops in %.2f s (%,.0f ops/s)", threads, totalOps, seconds, totalOps / seconds));
+        System.out.println(String.format("enrolled=%,d duplicate-rejected=%,d credit-rejected=%,d live=%,d",
+                enrolled.get(), rejectedDuplicate.get(), rejectedCredits.get(), studentTotal));
+        if (violations.get() > 0) {
+            System.out.println("FAILED: " + violations.get() + " violation(s)");
+            System.exit(1);
+        }
+        System.out.println("PASSED: no student exceeded " + MAX_CREDITS + " credits in any semester");
+    }
+
+    /**
+     * Returns a description of what is wrong with one student's enrollments, or null if nothing is.
+     */
+    private static String checkStudent(List<Enrollment> enrollments) {
+        Map<Semester, Integer> credits = new EnumMap<>(Semester.class);
+        Set<String> courseCodes = new HashSet<>();
+        for (Enrollment e : enrollments) {
+            if (!courseCodes.add(e.getCourse().getCode())) {
+                return "duplicate enrollment in " + e.getCourse().getCode();
+            }
+            credits.merge(e.getCourse().getSemester(), e.getCourse().getCredits(), Integer::sum);
+        }
+        for (Map.Entry<Semester, Integer> entry : credits.entrySet()) {
+            if (entry.getValue() > MAX_CREDITS) {
+                return entry.getValue() + " credits in " + entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.io.ImportExportService;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.EnrollmentService;
+import edu.ccrm.service.StudentService;
+import edu.ccrm.service.TranscriptService;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmark suite for the service layer's hot paths: student and course
+ * lookups, enrolling, grading, GPA computation and the CSV imports.
+ *
+ * The data set is produced by DataGenerator with a fixed seed, so two runs at
+ * the same size measure exactly the same data.
+ *
+ * Usage: java -cp ../bin edu.ccrm.bench.ServiceBenchmarks [10k|1m|10m|rows] [dataDir] [seed]
+ * If dataDir already holds generated files they are reused.
+ */
+public class ServiceBenchmarks {
+    private static final int OPS_PER_ITERATION = 200_000;
+
+    public static void main(String[] args) throws Exception {
+        int rows = DataGenerator.parseSize(args.length > 0 ? args[0] : "10k");
+        Path dataDir = args.length > 1 ? Paths.get(args[1]) : Files.createTempDirectory("ccrm-bench");
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : DataGenerator.DEFAULT_SEED;
+        if (!Files.exists(dataDir.resolve("enrollments.csv"))) {
+            DataGenerator.generate(dataDir, rows, seed);
+        }
+        System.out.println(String.format("Data set: %,d enrollment rows in %s", rows, dataDir.toAbsolutePath()));
+
+        ImportExportService importer = new ImportExportService(dataDir, Runtime.getRuntime().availableProcessors());
+        StudentService studentService = new StudentService();
+        CourseService courseService = new CourseService();
+        EnrollmentService enrollmentService = new EnrollmentService(studentService, courseService);
+        TranscriptService transcriptService = new TranscriptService();
+        enrollmentService.addListener(transcriptService);
+        importer.importStudents(studentService);
+        importer.importCourses(courseService);
+        importer.importEnrollments(enrollmentService);
+
+        int students = studentService.getStudentCount();
+        int courses = courseService.listCourses().size();
+        Random random = new Random(seed);
+        String[] regNos = new String[OPS_PER_ITERATION];
+        String[] courseCodes = new String[OPS_PER_ITERATION];
+        for (int i = 0; i < OPS_PER_ITERATION; i++) {
+            regNos[i] = DataGenerator.regNo(random.nextInt(students));
+            courseCodes[i] = DataGenerator.courseCode(random.nextInt(courses));
+        }
+        List<Enrollment> existing = enrollmentService.getAllEnrollments();
+        Enrollment[] toGrade = new Enrollment[OPS_PER_ITERATION];
+        for (int i = 0; i < OPS_PER_ITERATION; i++) {
+            toGrade[i] = existing.get(random.nextInt(existing.size()));
+        }
+        Grade[] grades = Grade.values();
+
+        System.out.println();
+        BenchmarkRunner.printHeader();
+        BenchmarkRunner.run("StudentService.findStudentByRegNo", OPS_PER_ITERATION,
+                i -> studentService.findStudentByRegNo(regNos[i]));
+        BenchmarkRunner.run("CourseService.findCourseByCode", OPS_PER_ITERATION,
+                i -> courseService.findCourseByCode(courseCodes[i]));
+        BenchmarkRunner.run("EnrollmentService.enrollStudent", OPS_PER_ITERATION, () -> {
+            // A fresh enrollment service per iteration, so every call does the full check-and-insert.
+            EnrollmentService fresh = new EnrollmentService(studentService, courseService);
+            return i -> {
+                try {
+                    fresh.enrollStudent(regNos[i], courseCodes[i]);
+                    return Boolean.TRUE;
+                } catch (Exception e) {
+                    return Boolean.FALSE;
+                }
+            };
+        });
+        BenchmarkRunner.run("EnrollmentService.recordGrade", OPS_PER_ITERATION, i -> {
+            Enrollment e = toGrade[i];
+            enrollmentService.recordGrade(e.getStudent().getRegNo(), e.getCourse().getCode(), grades[i % grades.length]);
+            return null;
+        });
+        BenchmarkRunner.run("TranscriptService.computeGPA(list)", OPS_PER_ITERATION,
+                i -> transcriptService.computeGPA(enrollmentService.getEnrollmentsForStudent(regNos[i])));
+        BenchmarkRunner.run("TranscriptService.computeGPA(regNo)", OPS_PER_ITERATION,
+                i -> transcriptService.computeGPA(regNos[i]));
+
+        // Import benchmarks: each iteration imports a whole file into empty services.
+        System.out.println();
+        BenchmarkRunner.printHeader();
+        BenchmarkRunner.runPerRow("ImportExportService.importStudents", students, () -> {
+            StudentService target = new StudentService();
+            return i -> {
+                importer.importStudents(target);
+                return target.getStudentCount();
+            };
+        });
+        BenchmarkRunner.runPerRow("ImportExportService.importCourses", courses, () -> {
+            CourseService target = new CourseService();
+            return i -> {
+                importer.importCourses(target);
+                return target.listCourses().size();
+            };
+        });
+        BenchmarkRunner.runPerRow("ImportExportService.importEnrollments", rows, () -> {
+            EnrollmentService target = new EnrollmentService(studentService, courseService);
+            return i -> {
+                importer.importEnrollments(target);
+                return null;
+            };
+        });
+    }
+}
@@ -0,0 +1,53 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.service.StudentService;
+
+/**
+ * Micro benchmark for StudentService.findStudentByRegNo.
+ * Loads 1k to 1M students and measures the average lookup time at each size,
+ * which should stay roughly flat now that lookups go through a hash index.
+ *
+ * Run with: java -cp ../bin edu.ccrm.bench.StudentLookupBenchmark
+ */
+public class StudentLookupBenchmark {
+    private static final int[] SIZES = {1_000, 10_000, 100_000, 1_000_000};
+    private static final int LOOKUPS = 1_000_000;
+
+    public static void main(String[] args) {
+        System.out.println(String.format("%-12s | %-12s | %s", "Students", "Lookups", "ns/lookup"));
+        System.out.println("----------------------------------------");
+        for (int size : SIZES) {
+            StudentService studentService = new StudentService();
+            String[] regNos = new String[size];
+            for (int i = 0; i < size; i++) {
+                regNos[i] = "REG" + i;
+                studentService.addStudent(regNos[i], "Student " + i, "student" + i + "@example.edu");
+            }
+
+            // Warm up so the JIT has compiled the lookup path before we measure.
+            runLookups(studentService, regNos, LOOKUPS);
+
+            long start = System.nanoTime();
+            int found = runLookups(studentService, regNos, LOOKUPS);
+            long elapsed = System.nanoTime() - start;
+
+            if (found != LOOKUPS) {
+                throw new IllegalStateException("Expected every lookup to succeed, got " + found);
+            }
+            System.out.println(String.format("%-12d | %-12d | %.1f", size, LOOKUPS, (double) elapsed / LOOKUPS));
+        }
+    }
+
+    private static int runLookups(StudentService studentService, String[] regNos, int lookups) {
+        int found = 0;
+        // Stride through the ids with a large prime so lookups are not sequential.
+        int index = 0;
+        for (int i = 0; i < lookups; i++) {
+            index = (index + 7_919) % regNos.length;
+            if (studentService.findStudentByRegNo(regNos[index]).isPresent()) {
+                found++;
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,104 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.io.WriteAheadLog;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Measures write-ahead log throughput in each durability mode, with one
+ * thread and with several threads appending at once (which is where group
+ * commit pays off). Every operation is one grade-change record, the most
+ * common change in normal use.
+ *
+ * The numbers depend heavily on how fast the disk completes an fsync, so run
+ * it on the disk the data directory lives on.
+ *
+ * Usage: java -cp ../bin edu.ccrm.bench.WalBenchmark [opsPerThread] [threads] [dir]
+ */
+public class WalBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int opsPerThread = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        Path dir = args.length > 2 ? Paths.get(args[2]) : Files.createTempDirectory("ccrm-wal");
+
+        Student student = new Student(DataGenerator.regNo(0), "Bench Student", "bench@example.edu");
+        Course course = new Course.Builder()
+                .setCode(DataGenerator.courseCode(0))
+                .setTitle("Bench Course")
+                .setCredits(3)
+                .setInstructor("Dr. Bench")
+                .setSemester(Semester.FALL)
+                .setDepartment("Benchmarks")
+                .build();
+        Enrollment enrollment = new Enrollment(student, course);
+
+        System.out.println(String.format("%-14s %8s %12s %14s %12s", "mode", "threads", "ops", "ops/s", "us/op"));
+        for (WriteAheadLog.Durability durability : WriteAheadLog.Durability.values()) {
+            for (int t : new int[]{1, threads}) {
+                run(dir, durability, t, opsPerThread, enrollment);
+            }
+        }
+        // The same single-threaded load with the whole run wrapped in one batch.
+        run(dir, WriteAheadLog.Durability.PER_OP, 1, opsPerThread * 10, enrollment, true);
+    }
+
+    private static void run(Path dir, WriteAheadLog.Durability durability, int threads, int opsPerThread,
+                            Enrollment enrollment) throws Exception {
+        run(dir, durability, threads, opsPerThread, enrollment, false);
+    }
+
+    private static void run(Path dir, WriteAheadLog.Durability durability, int threads, int opsPerThread,
+                            Enrollment enrollment, boolean batch) throws Exception {
+        Path file = dir.resolve("bench-" + durability + "-" + threads + ".wal");
+        Files.deleteIfExists(file);
+        long ops = (long) threads * opsPerThread;
+        long start;
+        try (WriteAheadLog log = new WriteAheadLog(file, durability)) {
+            CountDownLatch ready = new CountDownLatch(1);
+            List<Thread> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Thread worker = new Thread(() -> {
+                    try {
+                        ready.await();
+                        if (batch) {
+                            log.beginBatch();
+                        }
+                        for (int i = 0; i < opsPerThread; i++) {
+                            // As EnrollmentService.recordGrade does: the event, then the completion.
+                            log.onGradeChanged(enrollment, Grade.NOT_GRADED);
+                            log.onChangesComplete();
+                        }
+                        if (batch) {
+                            log.endBatch();
+                        }
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                }, "wal-bench-" + t);
+                workers.add(worker);
+                worker.start();
+            }
+            start = System.nanoTime();
+            ready.countDown();
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            // Async mode only counts once everything has actually reached the disk.
+            log.sync();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(String.format("%-14s %8s %,12d %,14.0f %12.1f", durability + (batch ? "+batch" : ""),
+                threads, ops, ops / seconds, seconds * 1e6 / ops));
+        Files.deleteIfExists(file);
+    }
+}
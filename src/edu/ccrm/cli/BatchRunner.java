@@ -0,0 +1,296 @@
+package edu.ccrm.cli;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.exceptions.DuplicateEnrollmentException;
+import edu.ccrm.exceptions.MaxCreditLimitExceededException;
+import edu.ccrm.io.ImportExportService;
+import edu.ccrm.io.WriteAheadLog;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.EnrollmentService;
+import edu.ccrm.service.StudentService;
+import edu.ccrm.service.TranscriptService;
+import edu.ccrm.util.Validators;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs a script of commands against the services without any menus, for
+ * scripted bulk work such as entering thousands of grades.
+ *
+ * One command per line; blank lines and lines starting with '#' are ignored.
+ * Arguments are separated by spaces, and an argument containing spaces is
+ * written in double quotes. Commands:
+ * <pre>
+ *   add-student    regNo "Full Name" email
+ *   update-email   regNo email
+ *   deactivate     regNo
+ *   add-course     code "Title" credits "Instructor" SEMESTER "Department"
+ *   set-instructor code "Instructor"
+ *   reassign       "From Instructor" "To Instructor"
+ *   enroll         regNo courseCode
+ *   unenroll       regNo courseCode
+ *   grade          regNo courseCode GRADE
+ *   import-grades  path/to/grades.csv
+ *   gpa            regNo
+ *   transcript     regNo
+ *   export-transcripts file|dir path
+ *   export
+ * </pre>
+ * Changes print nothing; query results and failures ("line N: message") are
+ * written to a buffered output. A failed command does not stop the script.
+ * A summary with the number of commands, commands per second and failures is
+ * written at the end.
+ */
+public class BatchRunner {
+    // Changes are forced to the write-ahead log at least this often, rather than once per command.
+    private static final int SYNC_EVERY = 10_000;
+
+    private final StudentService studentService;
+    private final CourseService courseService;
+    private final EnrollmentService enrollmentService;
+    private final TranscriptService transcriptService;
+    private final ImportExportService importExportService;
+    private final WriteAheadLog writeAheadLog;
+
+    /**
+     * @param writeAheadLog The log the services write to, or null if there is none.
+     */
+    public BatchRunner(StudentService studentService, CourseService courseService, EnrollmentService enrollmentService,
+                       TranscriptService transcriptService, ImportExportService importExportService,
+                       WriteAheadLog writeAheadLog) {
+        this.studentService = studentService;
+        this.courseService = courseService;
+        this.enrollmentService = enrollmentService;
+        this.transcriptService = transcriptService;
+        this.importExportService = importExportService;
+        this.writeAheadLog = writeAheadLog;
+    }
+
+    /**
+     * Runs every command in the script.
+     * @param script The commands, one per line.
+     * @param out Where results, failures and the summary are written; flushed at the end.
+     * @return The number of commands that failed.
+     */
+    public int run(BufferedReader script, Writer out) throws IOException {
+        long start = System.nanoTime();
+        int commands = 0;
+        int failures = 0;
+        int lineNumber = 0;
+        String line;
+        if (writeAheadLog != null) {
+            writeAheadLog.beginBatch();
+        }
+        try {
+            while ((line = script.readLine()) != null) {
+                lineNumber++;
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                    continue;
+                }
+                commands++;
+                try {
+                    execute(tokenize(trimmed), out);
+                } catch (IllegalArgumentException | MaxCreditLimitExceededException | DuplicateEnrollmentException
+                         | UncheckedIOException e) {
+                    failures++;
+                    out.write("line " + lineNumber + ": " + e.getMessage() + System.lineSeparator());
+                }
+                if (writeAheadLog != null && commands % SYNC_EVERY == 0) {
+                    writeAheadLog.endBatch();
+                    writeAheadLog.beginBatch();
+                }
+            }
+        } finally {
+            if (writeAheadLog != null) {
+                writeAheadLog.endBatch();
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        out.write(String.format("Batch complete: %,d commands in %.2f s (%,.0f ops/s), %,d failed%n",
+                commands, seconds, seconds > 0 ? commands / seconds : 0, failures));
+        out.flush();
+        return failures;
+    }
+
+    /**
+     * Private helper that runs one tokenized command.
+     */
+    private void execute(List<String> args, Writer out)
+            throws IOException, MaxCreditLimitExceededException, DuplicateEnrollmentException {
+        String command = args.get(0).toLowerCase();
+        switch (command) {
+            case "add-student":
+                expect(args, 3);
+                if (!Validators.isValidEmail(args.get(3))) {
+                    throw new IllegalArgumentException("Invalid email format: " + args.get(3));
+                }
+                studentService.addStudent(args.get(1), args.get(2), args.get(3));
+                break;
+            case "update-email":
+                expect(args, 2);
+                if (!Validators.isValidEmail(args.get(2))) {
+                    throw new IllegalArgumentException("Invalid email format: " + args.get(2));
+                }
+                studentService.updateStudentEmail(args.get(1), args.get(2));
+                break;
+            case "deactivate":
+                expect(args, 1);
+                studentService.deactivateStudent(args.get(1));
+                break;
+            case "add-course":
+                expect(args, 6);
+                courseService.addCourse(new Course.Builder()
+                        .setCode(args.get(1))
+                        .setTitle(args.get(2))
+                        .setCredits(parseCredits(args.get(3)))
+                        .setInstructor(args.get(4))
+                        .setSemester(Semester.valueOf(args.get(5).toUpperCase()))
+                        .setDepartment(args.get(6))
+                        .build());
+                break;
+            case "set-instructor":
+                expect(args, 2);
+                courseService.updateCourseInstructor(args.get(1), args.get(2));
+                break;
+            case "reassign":
+                expect(args, 2);
+                courseService.reassignInstructor(args.get(1), args.get(2));
+                break;
+            case "enroll":
+                expect(args, 2);
+                enrollmentService.enrollStudent(args.get(1), args.get(2));
+                break;
+            case "unenroll":
+                expect(args, 2);
+                enrollmentService.unenrollStudent(args.get(1), args.get(2));
+                break;
+            case "grade":
+                expect(args, 3);
+                enrollmentService.recordGrade(args.get(1), args.get(2), Grade.valueOf(args.get(3).toUpperCase()));
+                break;
+            case "import-grades":
+                expect(args, 1);
+                try {
+                    out.write(importExportService.importGrades(enrollmentService, Paths.get(args.get(1))).toString());
+                    out.write(System.lineSeparator());
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Grade import failed: " + e.getMessage(), e);
+                }
+                break;
+            case "gpa":
+                expect(args, 1);
+                findStudent(args.get(1));
+                out.write(String.format("%s %.2f%n", args.get(1), transcriptService.computeGPA(args.get(1))));
+                break;
+            case "transcript": {
+                expect(args, 1);
+                Student student = findStudent(args.get(1));
+                out.write(transcriptService.generateTranscriptView(student.getFullName(),
+                        enrollmentService.getEnrollmentsForStudent(student.getRegNo())));
+                out.write(System.lineSeparator());
+                break;
+            }
+            case "export-transcripts":
+                expect(args, 2);
+                if (!args.get(1).equals("file") && !args.get(1).equals("dir")) {
+                    throw new IllegalArgumentException("export-transcripts expects file or dir, got " + args.get(1));
+                }
+                try {
+                    importExportService.exportTranscripts(studentService, enrollmentService, transcriptService,
+                            Paths.get(args.get(2)), args.get(1).equals("dir"));
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Transcript export failed: " + e.getMessage(), e);
+                }
+                break;
+            case "export":
+                expect(args, 0);
+                try {
+                    importExportService.exportStudents(studentService.listStudents());
+                    importExportService.exportCourses(courseService.listCourses());
+                    importExportService.exportEnrollments(enrollmentService.getAllEnrollments());
+                } catch (IOException e) {
+                    // Report it as a failed command rather than ending the script.
+                    throw new UncheckedIOException("Export failed: " + e.getMessage(), e);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown command: " + args.get(0));
+        }
+    }
+
+    private Student findStudent(String regNo) {
+        return studentService.findStudentByRegNo(regNo)
+                .orElseThrow(() -> new IllegalArgumentException("Student not found with registration number: " + regNo));
+    }
+
+    /**
+     * Private helper that checks a command has exactly the expected number of arguments.
+     */
+    private static void expect(List<String> args, int count) {
+        if (args.size() - 1 != count) {
+            throw new IllegalArgumentException(args.get(0) + " expects " + count + " argument(s), got " + (args.size() - 1));
+        }
+    }
+
+    private static int parseCredits(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid credits: " + value);
+        }
+    }
+
+    /**
+     * Splits a line on spaces, keeping double-quoted arguments together.
+     * Inside quotes, "" stands for one double quote.
+     */
+    static List<String> tokenize(String line) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean inQuotes = false;
+        boolean hasToken = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (inQuotes) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else {
+                        inQuotes = false;
+                    }
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                inQuotes = true;
+                hasToken = true;
+            } else if (Character.isWhitespace(c)) {
+                if (hasToken) {
+                    tokens.add(current.toString());
+                    current.setLength(0);
+                    hasToken = false;
+                }
+            } else {
+                current.append(c);
+                hasToken = true;
+            }
+        }
+        if (inQuotes) {
+            throw new IllegalArgumentException("Unterminated quote");
+        }
+        if (hasToken) {
+            tokens.add(current.toString());
+        }
+        return tokens;
+    }
+}
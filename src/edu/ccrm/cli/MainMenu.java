@@ -1,39 +1,61 @@
 
 package edu.ccrm.cli;
 
+import edu.ccrm.api.ApiServer;
+import edu.ccrm.config.AppConfig;
 import edu.ccrm.domain.Course;
 import edu.ccrm.domain.Grade;
 import edu.ccrm.domain.Semester;
 import edu.ccrm.exceptions.DuplicateEnrollmentException;
 import edu.ccrm.exceptions.MaxCreditLimitExceededException;
 import edu.ccrm.io.*;
+import edu.ccrm.metrics.Metrics;
 import edu.ccrm.service.*;
+import edu.ccrm.util.StringPool;
 import edu.ccrm.util.Validators;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Scanner;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 
 public class MainMenu {
+    // Rows printed per page by the student and course listings.
+    private static final int PAGE_SIZE = 50;
+    private static final int REJECTIONS_SHOWN = 20;
+
     private Scanner scanner = new Scanner(System.in);
     private StudentService studentService = new StudentService();
     private CourseService courseService = new CourseService();
     private EnrollmentService enrollmentService = new EnrollmentService(studentService, courseService);
     private TranscriptService transcriptService = new TranscriptService();
+    private ReportService reportService = new ReportService(courseService);
     private ImportExportService importExportService = new ImportExportService();
     private BackupService backupService = new BackupService();
+    private SnapshotService snapshotService = new SnapshotService();
+    private WriteAheadLog writeAheadLog;
+
+    public MainMenu() {
+        // Keep the transcript service's running GPA totals in step with enrollments.
+        enrollmentService.addListener(transcriptService);
+        // ...and the report aggregates with courses and enrollments.
+        courseService.addListener(reportService);
+        enrollmentService.addListener(reportService);
+        // Make the per-operation metrics readable from JConsole as well as the Reports menu.
+        Metrics.exportToJmx();
+    }
 
     
     public void run() {
         
-        try {
-            importExportService.importStudents(studentService);
-            importExportService.importCourses(courseService);
-            importExportService.importEnrollments(enrollmentService);
-            System.out.println("Initial data loaded successfully from CSV files.");
-        } catch (IOException e) {
-            System.out.println("Failed to load initial data: " + e.getMessage());
-        }
+        loadInitialData();
 
         boolean exit = false;
         while (!exit) {
@@ -46,14 +68,135 @@ public class MainMenu {
                 case "4": recordGrades(); break;
                 case "5": printTranscript(); break;
                 case "6": importExportData(); break;
-                case "7": backupData(); break;
+                case "7": exit = backupData(); break;
                 case "8": showReports(); break;
-                case "9": exit = true; System.out.println("Exiting program. Goodbye!"); break;
+                case "9": exit = true; saveSnapshot(); System.out.println("Exiting program. Goodbye!"); break;
                 default: System.out.println("Invalid option. Please try again.");
             }
         }
     }
 
+    /**
+     * Runs a command script without the menus (see BatchRunner), with the same
+     * startup and shutdown as the interactive mode: saved state and the
+     * write-ahead log are loaded first, and a snapshot is saved at the end.
+     * @param script The commands to run.
+     * @param out Where results, failures and the summary are written.
+     * @return The number of commands that failed.
+     */
+    public int runBatch(BufferedReader script, Writer out) throws IOException {
+        loadInitialData();
+        try {
+            return new BatchRunner(studentService, courseService, enrollmentService, transcriptService,
+                    importExportService, writeAheadLog).run(script, out);
+        } finally {
+            saveSnapshot();
+        }
+    }
+
+    /**
+     * Serves the HTTP API (see ApiServer) instead of the menus. Saved state and
+     * the write-ahead log are loaded first; the server runs until the process
+     * is stopped, and a snapshot is saved on the way out.
+     * @param port The port to listen on.
+     */
+    public void serve(int port) throws IOException {
+        loadInitialData();
+        ApiServer server = new ApiServer(studentService, courseService, enrollmentService, transcriptService);
+        server.start(port);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            saveSnapshot();
+        }, "ccrm-shutdown"));
+        System.out.println(String.format("CCRM API listening on http://localhost:%d/ (%s). Press Ctrl+C to stop.",
+                server.getPort(), server.getExecutorDescription()));
+    }
+
+    /**
+     * Loads the binary snapshot if it is current, which is much faster than
+     * re-parsing the CSV files, and falls back to the CSV files otherwise.
+     * Then replays the write-ahead log on top, and starts logging every change.
+     */
+    private void loadInitialData() {
+        loadSavedState();
+        try {
+            writeAheadLog = new WriteAheadLog();
+            writeAheadLog.replay(studentService, courseService, enrollmentService);
+            studentService.addListener(writeAheadLog);
+            courseService.addListener(writeAheadLog);
+            enrollmentService.addListener(writeAheadLog);
+        } catch (IOException e) {
+            System.out.println("Could not open the write-ahead log; changes will only be saved on export: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Private helper that loads the snapshot, or the CSV files if there is no current snapshot.
+     */
+    private void loadSavedState() {
+        try {
+            if (snapshotService.isCurrent()) {
+                snapshotService.load(studentService, courseService, enrollmentService);
+                System.out.println("Initial data loaded successfully from snapshot.");
+                return;
+            }
+        } catch (IOException e) {
+            System.out.println("Could not load snapshot, reading CSV files instead: " + e.getMessage());
+        }
+        try {
+            importExportService.importStudents(studentService);
+            importExportService.importCourses(courseService);
+            importExportService.importEnrollments(enrollmentService);
+            System.out.println("Initial data loaded successfully from CSV files.");
+        } catch (IOException e) {
+            System.out.println("Failed to load initial data: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Saves the in-memory state as a snapshot so the next start is fast, then
+     * empties and closes the write-ahead log, whose changes the snapshot now holds.
+     */
+    private void saveSnapshot() {
+        try {
+            checkpoint();
+            if (writeAheadLog != null) {
+                writeAheadLog.close();
+            }
+        } catch (IOException e) {
+            System.out.println("Could not save snapshot: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Private helper that saves a snapshot and, only once it is safely
+     * written, empties the write-ahead log. The snapshot is the one file that
+     * holds everything the log does; the CSV files leave out fields such as
+     * a student's status.
+     */
+    private void checkpoint() throws IOException {
+        snapshotService.save(studentService, courseService, enrollmentService);
+        if (writeAheadLog != null) {
+            writeAheadLog.checkpoint();
+        }
+    }
+
+    /**
+     * Private helper that marks the start of a bulk change, such as an import,
+     * so the write-ahead log forces it to disk once at the end rather than per row.
+     */
+    private void beginBulkChange() {
+        if (writeAheadLog != null) {
+            writeAheadLog.beginBatch();
+        }
+    }
+
+    private void endBulkChange() throws IOException {
+        if (writeAheadLog != null) {
+            writeAheadLog.endBatch();
+        }
+    }
+
     
     private void printMenu() {
         System.out.println("\n=== Campus Course & Records Manager (CCRM) ===");
@@ -116,14 +259,12 @@ public class MainMenu {
         System.out.println("\n--- List of All Students ---");
         System.out.println(String.format("%-15s | %-20s | %-30s | %s", "Reg No", "Full Name", "Email", "Status"));
         System.out.println("--------------------------------------------------------------------------------");
-        studentService.listStudents().forEach(student ->
-            System.out.println(String.format("%-15s | %-20s | %-30s | %s",
+        printPaged(studentService::listStudents, student -> String.format("%-15s | %-20s | %-30s | %s",
                 student.getRegNo(),
                 student.getFullName(),
                 student.getEmail(),
                 student.getStatus()
-            ))
-        );
+        ));
         System.out.println("--------------------------------------------------------------------------------");
     }
 
@@ -164,14 +305,18 @@ public class MainMenu {
         System.out.println("\n-- Course Management --");
         System.out.println("1. Add Course");
         System.out.println("2. List Courses");
-        System.out.println("3. Back to main menu");
+        System.out.println("3. Update Course Instructor");
+        System.out.println("4. Reassign All Courses of an Instructor");
+        System.out.println("5. Back to main menu");
         System.out.print("Enter your choice: ");
         String choice = scanner.nextLine();
 
         switch (choice) {
             case "1": addCourse(); break;
             case "2": listCourses(); break;
-            case "3": return;
+            case "3": updateCourseInstructor(); break;
+            case "4": reassignInstructor(); break;
+            case "5": return;
             default: System.out.println("Invalid option.");
         }
     }
@@ -212,17 +357,69 @@ public class MainMenu {
         System.out.println("\n--- List of All Courses ---");
         System.out.println(String.format("%-10s | %-45s | %-7s | %s", "Code", "Title", "Credits", "Department"));
         System.out.println("-----------------------------------------------------------------------------------------");
-        courseService.listCourses().forEach(course ->
-            System.out.println(String.format("%-10s | %-45s | %-7s | %s",
+        printPaged(courseService::listCourses, course -> String.format("%-10s | %-45s | %-7s | %s",
                 course.getCode(),
                 course.getTitle(),
                 course.getCredits(),
                 course.getDepartment()
-            ))
-        );
+        ));
         System.out.println("-----------------------------------------------------------------------------------------");
     }
 
+    private void updateCourseInstructor() {
+        System.out.print("Enter course code: ");
+        String code = scanner.nextLine();
+        System.out.print("Enter new instructor: ");
+        String instructor = scanner.nextLine();
+        try {
+            courseService.updateCourseInstructor(code, instructor);
+            System.out.println("Instructor updated successfully.");
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+
+    private void reassignInstructor() {
+        System.out.print("Enter current instructor: ");
+        String from = scanner.nextLine();
+        System.out.print("Enter new instructor: ");
+        String to = scanner.nextLine();
+        List<Course> updated = courseService.reassignInstructor(from, to);
+        if (updated.isEmpty()) {
+            System.out.println("No courses found for instructor " + from + ".");
+        } else {
+            updated.forEach(course -> System.out.println(String.format("%-10s | %s", course.getCode(), course.getTitle())));
+            System.out.println(updated.size() + " courses reassigned to " + to + ".");
+        }
+    }
+
+    /**
+     * Prints a listing one page at a time. Each page is fetched on its own,
+     * formatted into a buffer and written to the console in a single call,
+     * and the user is asked before the next page is fetched.
+     */
+    private <T> void printPaged(BiFunction<Integer, Integer, Page<T>> fetch, Function<T, String> format) {
+        int cursor = Page.START;
+        int shown = 0;
+        while (true) {
+            Page<T> page = fetch.apply(cursor, PAGE_SIZE);
+            StringBuilder out = new StringBuilder(PAGE_SIZE * 100);
+            for (T item : page.getItems()) {
+                out.append(format.apply(item)).append(System.lineSeparator());
+            }
+            System.out.print(out);
+            shown += page.getItems().size();
+            if (!page.hasNext()) {
+                break;
+            }
+            System.out.print("-- " + shown + " shown. Press Enter for the next page, or q to stop: ");
+            if (!scanner.hasNextLine() || scanner.nextLine().trim().equalsIgnoreCase("q")) {
+                break;
+            }
+            cursor = page.getNextCursor();
+        }
+    }
+
     
     private void manageEnrollment() {
         System.out.println("\n-- Enrollment Management --");
@@ -301,23 +498,40 @@ public class MainMenu {
         System.out.println("\n-- Import/Export Data --");
         System.out.println("1. Import All Data");
         System.out.println("2. Export All Data");
-        System.out.println("3. Back to main menu");
+        System.out.println("3. Import Grade Sheet");
+        System.out.println("4. Export All Transcripts");
+        System.out.println("5. Back to main menu");
         System.out.print("Enter your choice: ");
         String choice = scanner.nextLine();
         try {
             switch (choice) {
                 case "1":
-                    importExportService.importStudents(studentService);
-                    importExportService.importCourses(courseService);
-                    importExportService.importEnrollments(enrollmentService);
+                    beginBulkChange();
+                    try {
+                        importExportService.importStudents(studentService);
+                        importExportService.importCourses(courseService);
+                        importExportService.importEnrollments(enrollmentService);
+                    } finally {
+                        endBulkChange();
+                    }
                     System.out.println("Data re-imported successfully.");
                     break;
                 case "2":
                     importExportService.exportStudents(studentService.listStudents());
                     importExportService.exportCourses(courseService.listCourses());
+                    importExportService.exportEnrollments(enrollmentService.getAllEnrollments());
+                    // The CSV files are now newer than the snapshot, so the next start
+                    // would load them instead; save a fresh snapshot to keep it current.
+                    checkpoint();
                     System.out.println("Data exported successfully to the 'data' directory.");
                     break;
                 case "3":
+                    importGradeSheet();
+                    break;
+                case "4":
+                    exportTranscripts();
+                    break;
+                case "5":
                     return;
                 default:
                     System.out.println("Invalid option.");
@@ -327,15 +541,125 @@ public class MainMenu {
         }
     }
 
-    
-    private void backupData() {
-        System.out.println("Backing up data...");
+    /**
+     * Applies a grade sheet (regNo, courseCode, grade) and lists the first rejected rows.
+     */
+    private void importGradeSheet() throws IOException {
+        System.out.print("Enter grade sheet path [data/grades.csv]: ");
+        String input = scanner.nextLine().trim();
+        Path sheet = Paths.get(input.isEmpty() ? "data/grades.csv" : input);
+        GradeImportReport report;
+        beginBulkChange();
         try {
-            backupService.backupExports();
+            report = importExportService.importGrades(enrollmentService, sheet);
+        } finally {
+            endBulkChange();
+        }
+        System.out.println(report);
+        List<GradeImportReport.Rejection> rejections = report.getRejections();
+        rejections.stream().limit(REJECTIONS_SHOWN).forEach(r -> System.out.println("  " + r));
+        if (!rejections.isEmpty()) {
+            System.out.println("Every rejected row is listed in " + sheet + ".rejected.csv");
+        }
+    }
+
+    /**
+     * Writes every student's transcript, to one file or to one file per student.
+     */
+    private void exportTranscripts() throws IOException {
+        System.out.print("One file per student? (y/N): ");
+        boolean perStudent = scanner.nextLine().trim().equalsIgnoreCase("y");
+        Path target = AppConfig.getInstance().getDataDir().resolve(perStudent ? "transcripts" : "transcripts.txt");
+        importExportService.exportTranscripts(studentService, enrollmentService, transcriptService, target, perStudent);
+    }
+
+    /**
+     * @return true if the data files were restored from an archive, in which
+     *         case the program must exit without saving what is in memory.
+     */
+    private boolean backupData() {
+        System.out.println("\n-- Backup Data --");
+        System.out.println("1. Incremental Snapshot");
+        System.out.println("2. Compressed Archive");
+        System.out.println("3. Restore Latest Archive to Data Files");
+        System.out.println("4. Restore Latest Incremental Snapshot to Data Files");
+        System.out.println("5. Load Latest Archive into Memory");
+        System.out.println("6. Back to main menu");
+        System.out.print("Enter your choice: ");
+        String choice = scanner.nextLine();
+        try {
+            switch (choice) {
+                case "1":
+                    System.out.println("Backing up data...");
+                    backupService.backupExports();
+                    break;
+                case "2":
+                    System.out.println("Creating archive...");
+                    backupService.createArchive();
+                    break;
+                case "3": {
+                    Optional<Path> archive = backupService.findLatestArchive();
+                    if (archive.isPresent()) {
+                        backupService.restoreArchive(archive.get());
+                        return discardStateAfterRestore();
+                    } else {
+                        System.out.println("No archive found.");
+                    }
+                    break;
+                }
+                case "4": {
+                    Optional<Path> manifest = backupService.findLatestSnapshot();
+                    if (manifest.isPresent()) {
+                        backupService.restoreSnapshot(manifest.get());
+                        return discardStateAfterRestore();
+                    } else {
+                        System.out.println("No incremental snapshot found.");
+                    }
+                    break;
+                }
+                case "5": {
+                    // Records already in memory are kept; the import skips duplicates.
+                    Optional<Path> archive = backupService.findLatestArchive();
+                    if (archive.isPresent()) {
+                        beginBulkChange();
+                        try {
+                            backupService.restoreArchive(archive.get(), importExportService,
+                                    studentService, courseService, enrollmentService);
+                        } finally {
+                            endBulkChange();
+                        }
+                    } else {
+                        System.out.println("No archive found.");
+                    }
+                    break;
+                }
+                case "6":
+                    return false;
+                default:
+                    System.out.println("Invalid option.");
+            }
         } catch (IOException | RuntimeException e) {
             System.out.println("AN ERROR OCCURRED DURING BACKUP:");
             e.printStackTrace(); 
         }
+        return false;
+    }
+
+    /**
+     * Private helper for after the data files have been restored under the
+     * running program. The write-ahead log holds changes to the state loaded
+     * before the restore, and replaying them on the restored files would
+     * partly undo it, so it is emptied and closed; the in-memory state is
+     * not saved as a snapshot either, for the same reason.
+     * @return true, so the caller exits.
+     */
+    private boolean discardStateAfterRestore() throws IOException {
+        if (writeAheadLog != null) {
+            writeAheadLog.checkpoint();
+            writeAheadLog.close();
+        }
+        System.out.println("Data files restored. Exiting without saving; start the program again to load them.");
+        return true;
     }
 
     
@@ -344,7 +668,12 @@ public class MainMenu {
         System.out.println("1. List Courses by Department");
         System.out.println("2. List Students in a Course");
         System.out.println("3. List Courses with No Enrollments");
-        System.out.println("4. Back to Main Menu");
+        System.out.println("4. List Courses with Fewer than N Enrollments");
+        System.out.println("5. Most Enrolled Courses");
+        System.out.println("6. Department Load");
+        System.out.println("7. Memory Usage");
+        System.out.println("8. Metrics");
+        System.out.println("9. Back to Main Menu");
         System.out.print("Select a report to generate: ");
         String choice = scanner.nextLine();
 
@@ -352,7 +681,12 @@ public class MainMenu {
             case "1": listCoursesByDepartment(); break;
             case "2": listStudentsInCourse(); break;
             case "3": listCoursesWithNoEnrollments(); break;
-            case "4": return;
+            case "4": listCoursesWithFewEnrollments(); break;
+            case "5": listMostEnrolledCourses(); break;
+            case "6": showDepartmentLoad(); break;
+            case "7": showMemoryUsage(); break;
+            case "8": System.out.println("\n--- Metrics ---"); System.out.print(Metrics.report()); break;
+            case "9": return;
             default: System.out.println("Invalid option.");
         }
     }
@@ -366,7 +700,9 @@ public class MainMenu {
         if (courses.isEmpty()) {
             System.out.println("No courses found for this department.");
         } else {
-            courses.forEach(System.out::println);
+            courses.forEach(course -> System.out.println(String.format("%s | %d enrolled",
+                    course, courseService.getEnrollmentCount(course.getCode()))));
+            System.out.println(reportService.getDepartmentLoad(department));
         }
     }
 
@@ -380,13 +716,20 @@ public class MainMenu {
             System.out.println("No students are enrolled in this course.");
         } else {
             enrollments.forEach(enrollment -> System.out.println(enrollment.getStudent()));
+            StringBuilder distribution = new StringBuilder("Grades:");
+            reportService.getGradeDistribution(enrollments.get(0).getCourse().getCode()).forEach((grade, count) -> {
+                if (count > 0) {
+                    distribution.append(' ').append(grade).append('=').append(count);
+                }
+            });
+            System.out.println(String.format("%d students. %s", enrollments.size(), distribution));
         }
     }
     
     
     private void listCoursesWithNoEnrollments() {
         System.out.println("\n--- Courses with No Enrollments ---");
-        List<Course> unEnrolledCourses = courseService.findCoursesWithNoEnrollments(enrollmentService.getAllEnrollments());
+        List<Course> unEnrolledCourses = courseService.findCoursesWithNoEnrollments();
 
         if (unEnrolledCourses.isEmpty()) {
             System.out.println("All courses have at least one student enrolled.");
@@ -396,4 +739,60 @@ public class MainMenu {
             );
         }
     }
+
+    private void listCoursesWithFewEnrollments() {
+        System.out.print("Enter the minimum number of students: ");
+        int limit;
+        try {
+            limit = Integer.parseInt(scanner.nextLine().trim());
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid number.");
+            return;
+        }
+        System.out.println("\n--- Courses with Fewer than " + limit + " Enrollments ---");
+        List<Course> courses = courseService.findCoursesWithFewerEnrollmentsThan(limit);
+        if (courses.isEmpty()) {
+            System.out.println("Every course has at least " + limit + " students enrolled.");
+        } else {
+            courses.forEach(course -> System.out.println(String.format("%-10s | %-30s | %d enrolled",
+                    course.getCode(), course.getTitle(), courseService.getEnrollmentCount(course.getCode()))));
+        }
+    }
+
+    private void listMostEnrolledCourses() {
+        System.out.println("\n--- Most Enrolled Courses ---");
+        Map<String, Integer> counts = reportService.getMostEnrolledCourses(10);
+        if (counts.isEmpty()) {
+            System.out.println("No courses found.");
+        }
+        int rank = 1;
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            String title = courseService.findCourseByCode(entry.getKey()).map(Course::getTitle).orElse("");
+            System.out.println(String.format("%2d. %-10s | %-30s | %d enrolled", rank++, entry.getKey(), title, entry.getValue()));
+        }
+    }
+
+    private void showMemoryUsage() {
+        System.out.println("\n--- Memory Usage ---");
+        Runtime runtime = Runtime.getRuntime();
+        long used = runtime.totalMemory() - runtime.freeMemory();
+        System.out.println(String.format("Heap: %,d MB used, %,d MB committed, %,d MB max",
+                used >> 20, runtime.totalMemory() >> 20, runtime.maxMemory() >> 20));
+        int enrollments = enrollmentService.getEnrollmentCount();
+        long storage = enrollmentService.getStorageBytes();
+        System.out.println(String.format("Enrollment store: %,d enrollments in %,d KB of arrays (%.1f bytes each)",
+                enrollments, storage >> 10, enrollments == 0 ? 0.0 : (double) storage / enrollments));
+        System.out.println("String deduplication by field:");
+        System.out.print(StringPool.report());
+    }
+
+    private void showDepartmentLoad() {
+        System.out.println("\n--- Department Load ---");
+        List<ReportService.DepartmentLoad> loads = reportService.getDepartmentLoads();
+        if (loads.isEmpty()) {
+            System.out.println("No courses found.");
+        } else {
+            loads.forEach(System.out::println);
+        }
+    }
 }
\ No newline at end of file
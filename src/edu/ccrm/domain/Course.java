@@ -1,10 +1,16 @@
 
 package edu.ccrm.domain;
 
+import edu.ccrm.util.StringPool;
 import java.util.Objects;
 
 
 public class Course {
+    // Titles, instructors and departments repeat across many courses; keep one copy of each.
+    private static final StringPool TITLES = StringPool.named("Course.title");
+    private static final StringPool INSTRUCTORS = StringPool.named("Course.instructor");
+    private static final StringPool DEPARTMENTS = StringPool.named("Course.department");
+
     private final String code;
     private final String title;
     private final int credits;
@@ -15,11 +21,11 @@ public class Course {
     
     private Course(Builder builder) {
         this.code = builder.code;
-        this.title = builder.title;
+        this.title = TITLES.canonicalize(builder.title);
         this.credits = builder.credits;
-        this.instructor = builder.instructor;
+        this.instructor = INSTRUCTORS.canonicalize(builder.instructor);
         this.semester = builder.semester;
-        this.department = builder.department;
+        this.department = DEPARTMENTS.canonicalize(builder.department);
     }
 
     
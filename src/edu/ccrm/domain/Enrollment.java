@@ -23,9 +23,21 @@ public class Enrollment {
      * @param course The course the student is enrolling in.
      */
     public Enrollment(Student student, Course course) {
+        this(student, course, LocalDate.now());
+    }
+
+    /**
+     * Creates an enrollment record with a known enrollment date, such as one
+     * being restored from an export. The initial grade is NOT_GRADED.
+     *
+     * @param student The student being enrolled.
+     * @param course The course the student is enrolling in.
+     * @param enrollmentDate The date the student enrolled.
+     */
+    public Enrollment(Student student, Course course, LocalDate enrollmentDate) {
         this.student = student;
         this.course = course;
-        this.enrollmentDate = LocalDate.now();
+        this.enrollmentDate = enrollmentDate;
         this.grade = Grade.NOT_GRADED;
     }
 
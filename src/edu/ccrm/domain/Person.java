@@ -1,6 +1,7 @@
 // CCRM/src/edu/ccrm/domain/Person.java
 package edu.ccrm.domain;
 
+import edu.ccrm.util.StringPool;
 import java.time.LocalDate;
 
 /**
@@ -8,6 +9,10 @@ import java.time.LocalDate;
  * It contains common properties like full name, email, and joined date.
  */
 public abstract class Person {
+    // Many people share a name. Emails are left alone: they are nearly all
+    // distinct, and a pool entry would cost more than the copy it could save.
+    private static final StringPool NAMES = StringPool.named("Person.fullName");
+
     protected String fullName;
     protected String email;
     protected LocalDate joinedDate;
@@ -19,7 +24,7 @@ public abstract class Person {
      * @param joinedDate The date the person joined the institution.
      */
     public Person(String fullName, String email, LocalDate joinedDate) {
-        this.fullName = fullName;
+        this.fullName = NAMES.canonicalize(fullName);
         this.email = email;
         this.joinedDate = joinedDate;
     }
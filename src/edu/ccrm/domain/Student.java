@@ -19,7 +19,14 @@ public class Student extends Person {
 
     
     public Student(String regNo, String fullName, String email) {
-        super(fullName, email, LocalDate.now());
+        this(regNo, fullName, email, LocalDate.now());
+    }
+
+    /**
+     * Creates a student with a known joined date, such as one read back from a snapshot.
+     */
+    public Student(String regNo, String fullName, String email, LocalDate joinedDate) {
+        super(fullName, email, joinedDate);
         if (regNo == null || regNo.isEmpty()) throw new IllegalArgumentException("Registration number cannot be empty");
         this.regNo = regNo;
         this.status = Status.ACTIVE;
@@ -0,0 +1,174 @@
+package edu.ccrm.io;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads an archive written by ArchiveWriter as a stream of entries.
+ * Only one block per entry is inflated at a time, so restoring needs the
+ * same small amount of memory whatever the size of the archive.
+ *
+ * Usage:
+ * <pre>
+ *   while ((name = reader.nextEntry()) != null) {
+ *       InputStream data = reader.entryStream();
+ *       ...
+ *   }
+ * </pre>
+ */
+public class ArchiveReader implements Closeable {
+    private final DataInputStream in;
+    private final Inflater inflater = new Inflater(true);
+    private EntryStream current;
+    private long entrySize;
+
+    public ArchiveReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(in, ArchiveWriter.BLOCK_SIZE));
+        byte[] magic = new byte[ArchiveWriter.MAGIC.length];
+        this.in.readFully(magic);
+        if (!Arrays.equals(magic, ArchiveWriter.MAGIC)) {
+            throw new IOException("Not a CCRM backup archive");
+        }
+    }
+
+    /**
+     * Moves to the next entry, skipping whatever is left of the current one.
+     * @return The entry's path, or null at the end of the archive.
+     */
+    public String nextEntry() throws IOException {
+        if (current != null) {
+            current.skipRest();
+            current = null;
+        }
+        byte marker = in.readByte();
+        if (marker == 0) {
+            return null;
+        }
+        if (marker != 1) {
+            throw new IOException("Corrupt archive: unexpected entry marker " + marker);
+        }
+        String name = in.readUTF();
+        entrySize = in.readLong();
+        current = new EntryStream();
+        return name;
+    }
+
+    /**
+     * @return The size the current entry's file had when it was archived.
+     */
+    public long entrySize() {
+        return entrySize;
+    }
+
+    /**
+     * @return A stream of the current entry's uncompressed bytes. Closing it
+     *         does not close the archive.
+     */
+    public InputStream entryStream() {
+        if (current == null) {
+            throw new IllegalStateException("No current entry; call nextEntry first");
+        }
+        return current;
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        in.close();
+    }
+
+    /**
+     * Inflates the current entry one block at a time.
+     */
+    private class EntryStream extends InputStream {
+        private byte[] block = new byte[0];
+        private int position;
+        private int limit;
+        private boolean finished;
+
+        @Override
+        public int read() throws IOException {
+            if (!fill()) {
+                return -1;
+            }
+            return block[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int count = Math.min(length, limit - position);
+            System.arraycopy(block, position, buffer, offset, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+            // Leave the archive open; nextEntry skips anything unread.
+        }
+
+        void skipRest() throws IOException {
+            while (fill()) {
+                position = limit;
+            }
+        }
+
+        /**
+         * Makes sure there is unread data in the current block.
+         * @return false once the entry has no more data.
+         */
+        private boolean fill() throws IOException {
+            while (position == limit) {
+                if (finished) {
+                    return false;
+                }
+                int rawLength = in.readInt();
+                if (rawLength == 0) {
+                    finished = true;
+                    return false;
+                }
+                int compressedLength = in.readInt();
+                if (rawLength < 0 || compressedLength < 0) {
+                    throw new IOException("Corrupt archive: negative block length");
+                }
+                byte[] compressed = new byte[compressedLength];
+                in.readFully(compressed);
+                if (block.length < rawLength) {
+                    block = new byte[rawLength];
+                }
+                inflater.reset();
+                inflater.setInput(compressed);
+                try {
+                    int inflated = 0;
+                    while (inflated < rawLength && !inflater.finished()) {
+                        int n = inflater.inflate(block, inflated, rawLength - inflated);
+                        if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                            break;
+                        }
+                        inflated += n;
+                    }
+                    if (inflated != rawLength) {
+                        throw new IOException("Corrupt archive: block inflated to " + inflated + " of " + rawLength + " bytes");
+                    }
+                } catch (DataFormatException e) {
+                    throw new IOException("Corrupt archive: " + e.getMessage(), e);
+                }
+                position = 0;
+                limit = rawLength;
+            }
+            return true;
+        }
+    }
+}
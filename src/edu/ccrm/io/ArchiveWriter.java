@@ -0,0 +1,185 @@
+package edu.ccrm.io;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a compressed backup archive, compressing blocks on several cores.
+ *
+ * Archive layout (all numbers big-endian, as written by DataOutputStream):
+ * <pre>
+ *   "CCRMARC1"                               magic
+ *   per file:  1, UTF path, long size        entry header
+ *              { int rawLength, int compressedLength, bytes }*   raw DEFLATE blocks
+ *              0                              end of entry (rawLength 0)
+ *   0                                         end of archive
+ * </pre>
+ * Every block is compressed independently, so blocks can be compressed in
+ * parallel here and inflated one at a time, as a stream, by ArchiveReader.
+ */
+public class ArchiveWriter implements Closeable {
+    static final byte[] MAGIC = {'C', 'C', 'R', 'M', 'A', 'R', 'C', '1'};
+    static final int BLOCK_SIZE = 1024 * 1024;
+
+    private final DataOutputStream out;
+    private final ExecutorService pool;
+    private final int maxInFlight;
+    private long bytesIn;
+    private long bytesOut;
+    private boolean closed;
+
+    /**
+     * A compressed block waiting to be written.
+     */
+    private static class Block {
+        final int rawLength;
+        final byte[] compressed;
+        final int compressedLength;
+
+        Block(int rawLength, byte[] compressed, int compressedLength) {
+            this.rawLength = rawLength;
+            this.compressed = compressed;
+            this.compressedLength = compressedLength;
+        }
+    }
+
+    /**
+     * @param out Where to write the archive; closed when this writer is closed.
+     * @param workers The number of threads compressing blocks.
+     */
+    public ArchiveWriter(OutputStream out, int workers) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out, BLOCK_SIZE));
+        this.pool = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "ccrm-archive");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Two blocks per worker in flight keeps every core busy with bounded memory.
+        this.maxInFlight = workers * 2;
+        this.out.write(MAGIC);
+        bytesOut += MAGIC.length;
+    }
+
+    /**
+     * Adds one file under the given name, streaming it block by block.
+     * @param name The path stored in the archive, relative to the data directory.
+     * @param file The file to read.
+     */
+    public void addFile(String name, Path file) throws IOException {
+        out.writeByte(1);
+        out.writeUTF(name);
+        out.writeLong(Files.size(file));
+        bytesOut += 1 + 2 + name.getBytes(StandardCharsets.UTF_8).length + 8;
+
+        Deque<Future<Block>> inFlight = new ArrayDeque<>();
+        try (InputStream in = Files.newInputStream(file)) {
+            while (true) {
+                byte[] raw = new byte[BLOCK_SIZE];
+                int read = in.readNBytes(raw, 0, BLOCK_SIZE);
+                if (read == 0) {
+                    break;
+                }
+                bytesIn += read;
+                inFlight.add(pool.submit(() -> compress(raw, read)));
+                if (inFlight.size() >= maxInFlight) {
+                    writeBlock(inFlight.poll());
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                writeBlock(inFlight.poll());
+            }
+        } finally {
+            for (Future<Block> pending : inFlight) {
+                pending.cancel(true);
+            }
+        }
+        out.writeInt(0);
+        bytesOut += 4;
+    }
+
+    /**
+     * @return The number of uncompressed bytes added so far.
+     */
+    public long getBytesIn() {
+        return bytesIn;
+    }
+
+    /**
+     * @return The number of archive bytes written so far.
+     */
+    public long getBytesOut() {
+        return bytesOut;
+    }
+
+    /**
+     * Writes the end-of-archive marker and closes the output. Closing twice has no effect.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            out.writeByte(0);
+            bytesOut += 1;
+            out.close();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void writeBlock(Future<Block> future) throws IOException {
+        Block block;
+        try {
+            block = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Archive interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to compress block", e.getCause());
+        }
+        out.writeInt(block.rawLength);
+        out.writeInt(block.compressedLength);
+        out.write(block.compressed, 0, block.compressedLength);
+        bytesOut += 8 + block.compressedLength;
+    }
+
+    /**
+     * Runs on a worker thread: compresses one block with a raw (headerless) deflater.
+     */
+    private static Block compress(byte[] raw, int length) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(raw, 0, length);
+            deflater.finish();
+            // Incompressible data can grow slightly, so leave some headroom.
+            byte[] buffer = new byte[length + length / 16 + 64];
+            int size = 0;
+            while (!deflater.finished()) {
+                if (size == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                size += deflater.deflate(buffer, size, buffer.length - size);
+            }
+            return new Block(length, buffer, size);
+        } finally {
+            deflater.end();
+        }
+    }
+}
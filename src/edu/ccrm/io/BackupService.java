@@ -1,45 +1,553 @@
 package edu.ccrm.io;
 
+import edu.ccrm.config.AppConfig;
+import edu.ccrm.metrics.Metrics;
+import edu.ccrm.metrics.OperationMetrics;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.EnrollmentService;
+import edu.ccrm.service.StudentService;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+/**
+ * Takes incremental, content-addressed backups of the data directory.
+ *
+ * Every file is split into fixed-size chunks, and each chunk is stored once
+ * under backup/objects/, named by its SHA-256 hash. A backup run writes a
+ * manifest to backup/snapshots/ listing each file with its size, modification
+ * time and chunk hashes. Files whose size and modification time match the
+ * previous snapshot are not read again; their chunk list is copied from the
+ * previous manifest. So a backup costs time and disk space in proportion to
+ * what changed since the last one. restoreSnapshot rebuilds the files of a
+ * manifest from their chunks, checking each chunk against its hash.
+ *
+ * It can also write a self-contained compressed archive to backup/archives/
+ * (see ArchiveWriter), compressing blocks on every core, and restore such an
+ * archive either into the data directory or straight into the services.
+ * Restoring streams the archive, so it never holds a whole file in memory.
+ *
+ * The snapshot and write-ahead log (ccrm.snapshot, ccrm.wal) and temporary
+ * *.tmp files are never backed up. They describe the running application's
+ * state rather than the data files, and restoring them over a live log, or
+ * next to older CSV files, would undo the restore.
+ */
 public class BackupService {
+    private static final OperationMetrics BACKUP_EXPORTS = Metrics.operation("BackupService", "backupExports");
+    private static final OperationMetrics CREATE_ARCHIVE = Metrics.operation("BackupService", "createArchive");
+    private static final OperationMetrics FIND_LATEST_ARCHIVE = Metrics.operation("BackupService", "findLatestArchive");
+    private static final OperationMetrics RESTORE_FILES = Metrics.operation("BackupService", "restoreArchive(files)");
+    private static final OperationMetrics FIND_LATEST_SNAPSHOT = Metrics.operation("BackupService", "findLatestSnapshot");
+    private static final OperationMetrics RESTORE_SNAPSHOT = Metrics.operation("BackupService", "restoreSnapshot");
+    private static final OperationMetrics RESTORE_INTO_SERVICES = Metrics.operation("BackupService", "restoreArchive(services)");
 
-    private static final Path DATA_DIR = Paths.get("data");
-    private static final Path BACKUP_ROOT = Paths.get("backup");
+    private static final int CHUNK_SIZE = 4 * 1024 * 1024;
+    private static final String MANIFEST_SUFFIX = ".manifest";
+    private static final String[] MANIFEST_HEADER = {"path", "size", "lastModified", "chunks"};
+    private static final String ARCHIVE_SUFFIX = ".ccrmz";
+    // Archived first and in this order, so a restore into the services sees students and courses before enrollments.
+    private static final List<String> LOAD_ORDER = List.of("students.csv", "courses.csv", "enrollments.csv");
+    private static final String SNAPSHOT_FILE = "ccrm.snapshot";
+    private static final Set<String> LIVE_STATE_FILES = Set.of(SNAPSHOT_FILE, "ccrm.wal");
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path dataDir;
+    private final Path objectsDir;
+    private final Path snapshotsDir;
+    private final Path archivesDir;
+
+    public BackupService() {
+        this(AppConfig.getInstance().getDataDir(), AppConfig.getInstance().getBackupDir());
+    }
+
+    /**
+     * @param dataDir The directory to back up.
+     * @param backupRoot The directory holding the chunk store and snapshot manifests.
+     */
+    public BackupService(Path dataDir, Path backupRoot) {
+        this.dataDir = dataDir;
+        this.objectsDir = backupRoot.resolve("objects");
+        this.snapshotsDir = backupRoot.resolve("snapshots");
+        this.archivesDir = backupRoot.resolve("archives");
+    }
+
+    /**
+     * One file as recorded in a snapshot manifest.
+     */
+    private static class ManifestEntry {
+        final String path;
+        final long size;
+        final long lastModified;
+        final List<String> chunks;
+
+        ManifestEntry(String path, long size, long lastModified, List<String> chunks) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.chunks = chunks;
+        }
+    }
 
     public void backupExports() throws IOException {
-        // Ensure the source data directory exists
-        if (!Files.exists(DATA_DIR) || !Files.isDirectory(DATA_DIR)) {
-            throw new IOException("Source data directory not found. Nothing to back up.");
+        BACKUP_EXPORTS.time(() -> {
+            long start = System.nanoTime();
+            // Ensure the source data directory exists
+            if (!Files.exists(dataDir) || !Files.isDirectory(dataDir)) {
+                throw new IOException("Source data directory not found. Nothing to back up.");
+            }
+            Files.createDirectories(objectsDir);
+            Files.createDirectories(snapshotsDir);
+
+            Map<String, ManifestEntry> previous = readLatestManifest();
+            List<ManifestEntry> entries = new ArrayList<>();
+            int changedFiles = 0;
+            int newChunks = 0;
+            long newBytes = 0;
+            long totalBytes = 0;
+
+            // Use a try-with-resources block to ensure the stream is closed
+            List<Path> files;
+            try (Stream<Path> walk = Files.walk(dataDir)) {
+                files = walk.filter(this::isBackedUp).sorted().collect(Collectors.toList());
+            }
+            MessageDigest digest = newDigest();
+            byte[] buffer = new byte[CHUNK_SIZE];
+            for (Path sourceFile : files) {
+                String relative = relativeName(sourceFile);
+                long size = Files.size(sourceFile);
+                long lastModified = Files.getLastModifiedTime(sourceFile).toMillis();
+                totalBytes += size;
+
+                ManifestEntry old = previous.get(relative);
+                if (old != null && old.size == size && old.lastModified == lastModified) {
+                    // Unchanged since the last snapshot: reference its chunks without reading the file.
+                    entries.add(new ManifestEntry(relative, size, lastModified, old.chunks));
+                    continue;
+                }
+
+                changedFiles++;
+                List<String> chunks = new ArrayList<>();
+                try (InputStream in = Files.newInputStream(sourceFile)) {
+                    int read;
+                    while ((read = in.readNBytes(buffer, 0, CHUNK_SIZE)) > 0) {
+                        digest.update(buffer, 0, read);
+                        String hash = toHex(digest.digest());
+                        chunks.add(hash);
+                        if (storeChunk(hash, buffer, read)) {
+                            newChunks++;
+                            newBytes += read;
+                        }
+                    }
+                } catch (IOException e) {
+                    // This is crucial for debugging: wrap the exception to provide context
+                    throw new IOException("Failed to back up file: " + sourceFile, e);
+                }
+                entries.add(new ManifestEntry(relative, size, lastModified, chunks));
+            }
+
+            Path manifest = writeManifest(entries);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.println(String.format("Backup completed successfully: %s", manifest.toAbsolutePath()));
+            System.out.println(String.format("%d files (%,d bytes), %d changed, %d new chunks (%,d bytes stored) in %.2f s",
+                    entries.size(), totalBytes, changedFiles, newChunks, newBytes, seconds));
+        });
+    }
+
+    /**
+     * Writes every file in the data directory to a new compressed archive,
+     * compressing on one thread per available core.
+     * @return The path of the new archive.
+     */
+    public Path createArchive() throws IOException {
+        return CREATE_ARCHIVE.time(() -> {
+            long start = System.nanoTime();
+            if (!Files.exists(dataDir) || !Files.isDirectory(dataDir)) {
+                throw new IOException("Source data directory not found. Nothing to back up.");
+            }
+            Files.createDirectories(archivesDir);
+
+            List<Path> files;
+            try (Stream<Path> walk = Files.walk(dataDir)) {
+                files = walk.filter(this::isBackedUp)
+                        .sorted(Comparator.comparingInt((Path p) -> loadRank(relativeName(p))).thenComparing(p -> p))
+                        .collect(Collectors.toList());
+            }
+            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+            Path archive = archivesDir.resolve("backup_" + timestamp + ARCHIVE_SUFFIX);
+            for (int i = 1; Files.exists(archive); i++) {
+                archive = archivesDir.resolve("backup_" + timestamp + "_" + i + ARCHIVE_SUFFIX);
+            }
+            Path temp = archive.resolveSibling(archive.getFileName() + ".tmp");
+            ArchiveWriter writer;
+            try {
+                writer = new ArchiveWriter(Files.newOutputStream(temp), Runtime.getRuntime().availableProcessors());
+                try {
+                    for (Path sourceFile : files) {
+                        writer.addFile(relativeName(sourceFile), sourceFile);
+                    }
+                } finally {
+                    writer.close();
+                }
+                Files.move(temp, archive, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+            long bytesIn = writer.getBytesIn();
+            long bytesOut = writer.getBytesOut();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.println(String.format("Archive created successfully: %s", archive.toAbsolutePath()));
+            System.out.println(String.format("%d files, %,d bytes compressed to %,d (%.1fx) in %.2f s (%.1f MB/s)",
+                    files.size(), bytesIn, bytesOut, bytesOut > 0 ? (double) bytesIn / bytesOut : 0, seconds,
+                    seconds > 0 ? bytesIn / (1024.0 * 1024.0) / seconds : 0));
+            return archive;
+        });
+    }
+
+    /**
+     * @return The newest archive in backup/archives/, if there is one.
+     */
+    public Optional<Path> findLatestArchive() throws IOException {
+        return FIND_LATEST_ARCHIVE.time(() -> {
+            if (!Files.isDirectory(archivesDir)) {
+                return Optional.empty();
+            }
+            try (Stream<Path> archives = Files.list(archivesDir)) {
+                return archives.filter(p -> p.getFileName().toString().endsWith(ARCHIVE_SUFFIX))
+                        .max(Comparator.comparing(p -> p.getFileName().toString()));
+            }
+        });
+    }
+
+    /**
+     * Restores every file in an archive into the data directory, overwriting
+     * files of the same name. Each file is streamed to a temporary file and
+     * then atomically renamed, so a failed restore never leaves a half-written file.
+     * A snapshot or write-ahead log in an archive made by an older version is
+     * skipped, and the data directory's snapshot is deleted afterwards: it is
+     * newer than the restored files, so it would otherwise be loaded instead of them.
+     * The caller must also discard the write-ahead log and must not save a
+     * snapshot of state loaded before the restore.
+     * @param archive The archive to restore.
+     */
+    public void restoreArchive(Path archive) throws IOException {
+        RESTORE_FILES.time(() -> {
+            long start = System.nanoTime();
+            Path root = dataDir.toAbsolutePath().normalize();
+            int files = 0;
+            long bytes = 0;
+            try (ArchiveReader reader = new ArchiveReader(Files.newInputStream(archive))) {
+                String name;
+                while ((name = reader.nextEntry()) != null) {
+                    if (!isBackedUp(name)) {
+                        continue;
+                    }
+                    InputStream entry = reader.entryStream();
+                    bytes += restoreFile(root, name, out -> entry.transferTo(out));
+                    files++;
+                }
+            }
+            Files.deleteIfExists(root.resolve(SNAPSHOT_FILE));
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.println(String.format("Restored %d files (%,d bytes) from %s into %s in %.2f s",
+                    files, bytes, archive.getFileName(), root, seconds));
+        });
+    }
+
+    /**
+     * @return The newest incremental backup manifest in backup/snapshots/, if there is one.
+     */
+    public Optional<Path> findLatestSnapshot() throws IOException {
+        return FIND_LATEST_SNAPSHOT.time(() -> Optional.ofNullable(latestManifest()));
+    }
+
+    /**
+     * Restores every file listed in an incremental backup manifest into the
+     * data directory, rebuilding each from its chunks. Every chunk is checked
+     * against the SHA-256 hash it is stored under, and each file against the
+     * size the manifest records, before it replaces the current file; files
+     * are written exactly as restoreArchive writes them, and the same
+     * snapshot handling and caller obligations apply.
+     * @param manifest The manifest to restore, from backup/snapshots/.
+     */
+    public void restoreSnapshot(Path manifest) throws IOException {
+        RESTORE_SNAPSHOT.time(() -> {
+            long start = System.nanoTime();
+            Path root = dataDir.toAbsolutePath().normalize();
+            List<ManifestEntry> entries = readManifest(manifest);
+            long bytes = 0;
+            int files = 0;
+            for (ManifestEntry entry : entries) {
+                if (!isBackedUp(entry.path)) {
+                    continue;
+                }
+                bytes += restoreFile(root, entry.path, out -> writeChunks(entry, out));
+                files++;
+            }
+            Files.deleteIfExists(root.resolve(SNAPSHOT_FILE));
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.println(String.format("Restored %d files (%,d bytes) from %s into %s in %.2f s",
+                    files, bytes, manifest.getFileName(), root, seconds));
+        });
+    }
+
+    /**
+     * Loads the students, courses and enrollments in an archive directly into
+     * the services, decompressing as the import pipeline reads. Nothing is
+     * written to the data directory. Other files in the archive are skipped.
+     * @param archive The archive to restore.
+     * @param importer Parses the CSV entries.
+     */
+    public void restoreArchive(Path archive, ImportExportService importer, StudentService studentService,
+                               CourseService courseService, EnrollmentService enrollmentService) throws IOException {
+        RESTORE_INTO_SERVICES.time(() -> {
+            try (ArchiveReader reader = new ArchiveReader(Files.newInputStream(archive))) {
+                String name;
+                while ((name = reader.nextEntry()) != null) {
+                    Reader source = new InputStreamReader(reader.entryStream(), StandardCharsets.UTF_8);
+                    String sourceName = archive.getFileName() + ":" + name;
+                    switch (name) {
+                        case "students.csv":
+                            importer.importStudents(studentService, source, sourceName, reader.entrySize());
+                            break;
+                        case "courses.csv":
+                            importer.importCourses(courseService, source, sourceName, reader.entrySize());
+                            break;
+                        case "enrollments.csv":
+                            importer.importEnrollments(enrollmentService, source, sourceName, reader.entrySize());
+                            break;
+                        default:
+                            // Not service data; nextEntry skips it.
+                            break;
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Writes the content of one restored file.
+     */
+    private interface FileContent {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Private helper that writes one restored file into the data directory:
+     * to a temporary file first, then atomically renamed over the target, so a
+     * failed restore never leaves a half-written file.
+     * @return The number of bytes written.
+     */
+    private static long restoreFile(Path root, String name, FileContent content) throws IOException {
+        Path target = root.resolve(name).normalize();
+        if (!target.startsWith(root) || target.equals(root)) {
+            throw new IOException("Backup entry escapes the data directory: " + name);
         }
+        Files.createDirectories(target.getParent());
+        Path temp = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                content.writeTo(out);
+            }
+            long size = Files.size(temp);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return size;
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw new IOException("Failed to restore file: " + name, e);
+        }
+    }
+
+    /**
+     * Private helper that writes a manifest entry's chunks in order, checking
+     * each against its hash and the total against the recorded size.
+     */
+    private void writeChunks(ManifestEntry entry, OutputStream out) throws IOException {
+        MessageDigest digest = newDigest();
+        long written = 0;
+        for (String hash : entry.chunks) {
+            Path object = objectPath(hash);
+            if (!Files.exists(object)) {
+                throw new IOException("Chunk " + hash + " is missing from " + objectsDir);
+            }
+            byte[] data = Files.readAllBytes(object);
+            if (!toHex(digest.digest(data)).equals(hash)) {
+                throw new IOException("Chunk " + hash + " does not match its hash; the backup is corrupt");
+            }
+            out.write(data);
+            written += data.length;
+        }
+        if (written != entry.size) {
+            throw new IOException(String.format("Rebuilt %,d bytes, but the manifest records %,d", written, entry.size));
+        }
+    }
+
+    /**
+     * Private helper that gives a file's path relative to the data directory, with forward slashes.
+     */
+    private String relativeName(Path file) {
+        return dataDir.relativize(file).toString().replace('\\', '/');
+    }
+
+    /**
+     * Private helper that says whether a file in the data directory belongs in a backup.
+     */
+    private boolean isBackedUp(Path file) {
+        return Files.isRegularFile(file) && isBackedUp(relativeName(file));
+    }
 
-        // Create the root backup directory if it doesn't exist
-        if (!Files.exists(BACKUP_ROOT)) {
-            Files.createDirectories(BACKUP_ROOT);
+    private static boolean isBackedUp(String name) {
+        return !LIVE_STATE_FILES.contains(name) && !name.endsWith(TEMP_SUFFIX);
+    }
+
+    /**
+     * Private helper that ranks the service data files first, in load order, and everything else after.
+     */
+    private static int loadRank(String name) {
+        int rank = LOAD_ORDER.indexOf(name);
+        return rank >= 0 ? rank : LOAD_ORDER.size();
+    }
+
+    /**
+     * Private helper that stores a chunk under its hash unless it is already present.
+     * @return true if the chunk was new.
+     */
+    private boolean storeChunk(String hash, byte[] data, int length) throws IOException {
+        Path target = objectPath(hash);
+        if (Files.exists(target)) {
+            return false;
+        }
+        Files.createDirectories(target.getParent());
+        Path temp = target.resolveSibling(hash + ".tmp");
+        try {
+            Files.write(temp, length == data.length ? data : Arrays.copyOf(data, length));
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // Another backup stored the same content first; it is identical by definition.
+            Files.deleteIfExists(temp);
+            return false;
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
         }
+        return true;
+    }
+
+    /**
+     * Private helper that maps a chunk hash to its file, fanned out by the first two hex digits.
+     */
+    private Path objectPath(String hash) {
+        return objectsDir.resolve(hash.substring(0, 2)).resolve(hash);
+    }
 
-        // Create a timestamped directory for this specific backup
+    /**
+     * Private helper that writes this run's manifest, via a temp file and an atomic rename.
+     */
+    private Path writeManifest(List<ManifestEntry> entries) throws IOException {
         String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-        Path backupDir = BACKUP_ROOT.resolve("backup_" + timestamp);
-        Files.createDirectory(backupDir);
+        Path manifest = snapshotsDir.resolve("backup_" + timestamp + MANIFEST_SUFFIX);
+        for (int i = 1; Files.exists(manifest); i++) {
+            manifest = snapshotsDir.resolve("backup_" + timestamp + "_" + i + MANIFEST_SUFFIX);
+        }
+        Path temp = manifest.resolveSibling(manifest.getFileName() + ".tmp");
+        try {
+            try (CsvWriter writer = new CsvWriter(Files.newBufferedWriter(temp, StandardCharsets.UTF_8))) {
+                writer.writeRecord((Object[]) MANIFEST_HEADER);
+                for (ManifestEntry entry : entries) {
+                    writer.writeRecord(entry.path, entry.size, entry.lastModified, String.join(";", entry.chunks));
+                }
+            }
+            Files.move(temp, manifest, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        return manifest;
+    }
 
-        // Use a try-with-resources block to ensure the stream is closed
-        try (Stream<Path> walk = Files.walk(DATA_DIR)) {
-            walk.filter(Files::isRegularFile).forEach(sourceFile -> {
-                try {
-                    Path destinationFile = backupDir.resolve(DATA_DIR.relativize(sourceFile));
-                    Files.createDirectories(destinationFile.getParent());
-                    Files.copy(sourceFile, destinationFile, StandardCopyOption.REPLACE_EXISTING);
-                } catch (IOException e) {
-                    // This is crucial for debugging: wrap the exception to provide context
-                    throw new RuntimeException("Failed to back up file: " + sourceFile.toString(), e);
+    /**
+     * Private helper that loads the newest manifest, keyed by path; empty if there is none.
+     */
+    private Map<String, ManifestEntry> readLatestManifest() throws IOException {
+        Map<String, ManifestEntry> entries = new HashMap<>();
+        Path latest = latestManifest();
+        if (latest == null) {
+            return entries;
+        }
+        for (ManifestEntry entry : readManifest(latest)) {
+            // Only trust the previous entry if all of its chunks are still in the store.
+            if (entry.chunks.stream().allMatch(hash -> Files.exists(objectPath(hash)))) {
+                entries.put(entry.path, entry);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Private helper that finds the newest manifest, or null if there is none.
+     */
+    private Path latestManifest() throws IOException {
+        if (!Files.isDirectory(snapshotsDir)) {
+            return null;
+        }
+        try (Stream<Path> manifests = Files.list(snapshotsDir)) {
+            return manifests.filter(p -> p.getFileName().toString().endsWith(MANIFEST_SUFFIX))
+                    .max((a, b) -> a.getFileName().toString().compareTo(b.getFileName().toString()))
+                    .orElse(null);
+        }
+    }
+
+    /**
+     * Private helper that reads every entry of a manifest, in the order it lists them.
+     */
+    private List<ManifestEntry> readManifest(Path manifest) throws IOException {
+        List<ManifestEntry> entries = new ArrayList<>();
+        try (CsvReader reader = new CsvReader(Files.newBufferedReader(manifest, StandardCharsets.UTF_8))) {
+            reader.readRecord();
+            List<String> row;
+            while ((row = reader.readRecord()) != null) {
+                if (row.size() < MANIFEST_HEADER.length) {
+                    continue;
                 }
-            });
+                List<String> chunks = row.get(3).isEmpty() ? new ArrayList<>() : List.of(row.get(3).split(";"));
+                entries.add(new ManifestEntry(row.get(0), Long.parseLong(row.get(1)),
+                        Long.parseLong(row.get(2)), chunks));
+            }
+        }
+        return entries;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
         }
-        System.out.println("Backup completed successfully at: " + backupDir.toAbsolutePath());
+        return sb.toString();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,134 @@
+package edu.ccrm.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming RFC 4180 CSV reader.
+ * Reads one record at a time from a Reader, so only the current record and a
+ * small fixed-size buffer are held in memory no matter how large the file is.
+ * Quoted fields may contain commas, line breaks and doubled quotes ("").
+ */
+public class CsvReader implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder field = new StringBuilder();
+    private int position;
+    private int limit;
+    private long charsRead;
+    private long recordsRead;
+
+    public CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Reads the next record.
+     * @return The fields of the record, or null once the end of input is reached.
+     * @throws IOException if the underlying reader fails.
+     */
+    public List<String> readRecord() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+
+        List<String> record = new ArrayList<>();
+        field.setLength(0);
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    // Unterminated quote: keep what we have rather than losing the row.
+                    record.add(field.toString());
+                    break;
+                } else if (c == '"') {
+                    int next = read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        c = next;
+                        continue;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == ',') {
+                record.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                if (c == '\r') {
+                    int next = read();
+                    if (next != '\n' && next != -1) {
+                        position--;
+                        charsRead--;
+                    }
+                }
+                record.add(field.toString());
+                break;
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+        recordsRead++;
+        return record;
+    }
+
+    /**
+     * Reads up to maxRecords records into the given list.
+     * The list is cleared first, so callers can reuse one list for every chunk.
+     * @param chunk The list to fill.
+     * @param maxRecords The maximum number of records to read.
+     * @return The number of records read; 0 once the end of input is reached.
+     * @throws IOException if the underlying reader fails.
+     */
+    public int readChunk(List<List<String>> chunk, int maxRecords) throws IOException {
+        chunk.clear();
+        List<String> record;
+        while (chunk.size() < maxRecords && (record = readRecord()) != null) {
+            chunk.add(record);
+        }
+        return chunk.size();
+    }
+
+    /**
+     * @return The number of characters consumed so far.
+     */
+    public long getCharsRead() {
+        return charsRead;
+    }
+
+    /**
+     * @return The number of records read so far, including any header.
+     */
+    public long getRecordsRead() {
+        return recordsRead;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private int read() throws IOException {
+        if (position == limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        charsRead++;
+        return buffer[position++];
+    }
+}
@@ -0,0 +1,79 @@
+package edu.ccrm.io;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Streaming RFC 4180 CSV writer, the counterpart of CsvReader.
+ * Fields containing commas, quotes or line breaks are quoted, with any
+ * quotes inside them doubled; everything else is written as-is.
+ */
+public class CsvWriter implements Closeable, Flushable {
+    private final Writer writer;
+    private long recordsWritten;
+
+    public CsvWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Writes one record followed by a line break.
+     * @param fields The field values; null is written as an empty field.
+     * @throws IOException if the underlying writer fails.
+     */
+    public void writeRecord(Object... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeField(fields[i] == null ? "" : fields[i].toString());
+        }
+        writer.write('\n');
+        recordsWritten++;
+    }
+
+    /**
+     * @return The number of records written so far, including any header.
+     */
+    public long getRecordsWritten() {
+        return recordsWritten;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private void writeField(String value) throws IOException {
+        if (!needsQuotes(value)) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,69 @@
+package edu.ccrm.io;
+
+import java.util.List;
+
+/**
+ * The outcome of a grade sheet import: how many rows were read and applied,
+ * how fast, and every rejected row with the reason it was rejected.
+ */
+public class GradeImportReport {
+    private final long rows;
+    private final long applied;
+    private final List<Rejection> rejections;
+    private final double seconds;
+
+    /**
+     * One row of the sheet that was not applied.
+     */
+    public static class Rejection {
+        private final long row;
+        private final String regNo;
+        private final String courseCode;
+        private final String grade;
+        private final String reason;
+
+        Rejection(long row, String regNo, String courseCode, String grade, String reason) {
+            this.row = row;
+            this.regNo = regNo;
+            this.courseCode = courseCode;
+            this.grade = grade;
+            this.reason = reason;
+        }
+
+        /**
+         * @return The row's position in the sheet, counting the header as row 1.
+         */
+        public long getRow() { return row; }
+        public String getRegNo() { return regNo; }
+        public String getCourseCode() { return courseCode; }
+        public String getGrade() { return grade; }
+        public String getReason() { return reason; }
+
+        @Override
+        public String toString() {
+            return String.format("Row %d (%s, %s, %s): %s", row, regNo, courseCode, grade, reason);
+        }
+    }
+
+    GradeImportReport(long rows, long applied, List<Rejection> rejections, double seconds) {
+        this.rows = rows;
+        this.applied = applied;
+        this.rejections = rejections;
+        this.seconds = seconds;
+    }
+
+    public long getRows() { return rows; }
+    public long getApplied() { return applied; }
+    public List<Rejection> getRejections() { return rejections; }
+    public double getSeconds() { return seconds; }
+
+    public double getRowsPerSecond() {
+        return seconds > 0 ? rows / seconds : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Graded %,d of %,d rows in %.2f s (%,.0f rows/s), %,d rejected",
+                applied, rows, seconds, getRowsPerSecond(), rejections.size());
+    }
+}
@@ -1,116 +1,624 @@
 // CCRM/src/edu/ccrm/io/ImportExportService.java
 package edu.ccrm.io;
 
+import edu.ccrm.config.AppConfig;
 import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
 import edu.ccrm.domain.Semester;
 import edu.ccrm.domain.Student;
-import edu.ccrm.exceptions.DuplicateEnrollmentException;
-import edu.ccrm.exceptions.MaxCreditLimitExceededException;
+import edu.ccrm.metrics.Metrics;
+import edu.ccrm.metrics.OperationMetrics;
 import edu.ccrm.service.CourseService;
 import edu.ccrm.service.EnrollmentService;
+import edu.ccrm.service.EnrollmentSnapshot;
+import edu.ccrm.service.GradeUpdate;
 import edu.ccrm.service.StudentService;
+import edu.ccrm.service.TranscriptService;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+/**
+ * Imports and exports the CSV files in the data directory (data/ by default).
+ *
+ * Exports stream to a temporary file and are atomically renamed into place,
+ * so a crash mid-export never leaves a truncated file behind.
+ *
+ * Imports run as a pipeline: the calling thread reads records in fixed-size
+ * chunks, a pool of worker threads parses and validates each chunk into
+ * domain objects, and the calling thread hands the finished batches to the
+ * services' bulk insert methods in file order. Each import can also read from
+ * any character stream, which is how a backup archive is restored straight
+ * into the services without writing the CSV files to disk first.
+ *
+ * Transcript exports use the same pool the other way round: workers render
+ * chunks of transcripts and the calling thread writes them out in order.
+ */
 public class ImportExportService {
-    private static final Path STUDENT_CSV = Paths.get("data/students.csv");
-    private static final Path COURSE_CSV = Paths.get("data/courses.csv");
-    private static final Path ENROLLMENT_CSV = Paths.get("data/enrollments.csv");
+    private static final OperationMetrics IMPORT_STUDENTS = Metrics.operation("ImportExportService", "importStudents");
+    private static final OperationMetrics EXPORT_STUDENTS = Metrics.operation("ImportExportService", "exportStudents");
+    private static final OperationMetrics IMPORT_COURSES = Metrics.operation("ImportExportService", "importCourses");
+    private static final OperationMetrics EXPORT_COURSES = Metrics.operation("ImportExportService", "exportCourses");
+    private static final OperationMetrics IMPORT_ENROLLMENTS = Metrics.operation("ImportExportService", "importEnrollments");
+    private static final OperationMetrics EXPORT_ENROLLMENTS = Metrics.operation("ImportExportService", "exportEnrollments");
+    private static final OperationMetrics IMPORT_GRADES = Metrics.operation("ImportExportService", "importGrades");
+    private static final OperationMetrics EXPORT_TRANSCRIPTS = Metrics.operation("ImportExportService", "exportTranscripts");
+
+    // Rows are read and processed this many at a time, so memory use does not grow with file size.
+    private static final int CHUNK_SIZE = 10_000;
+    private static final int WRITE_BUFFER_SIZE = 256 * 1024;
+    // Students whose transcripts one worker task renders.
+    private static final int TRANSCRIPT_CHUNK_SIZE = 1_000;
+
+    private final Path studentCsv;
+    private final Path courseCsv;
+    private final Path enrollmentCsv;
+    private final int workers;
+
+    /**
+     * Creates an import/export service for the configured data directory that
+     * parses with one worker per available core.
+     */
+    public ImportExportService() {
+        this(AppConfig.getInstance().getDataDir(), Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param workers The number of worker threads used to parse and validate imported rows and render transcripts.
+     */
+    public ImportExportService(int workers) {
+        this(AppConfig.getInstance().getDataDir(), workers);
+    }
+
+    /**
+     * @param dataDir The directory holding students.csv, courses.csv and enrollments.csv.
+     * @param workers The number of worker threads used to parse and validate imported rows and render transcripts.
+     */
+    public ImportExportService(Path dataDir, int workers) {
+        if (workers < 1) throw new IllegalArgumentException("Worker count must be at least 1");
+        this.studentCsv = dataDir.resolve("students.csv");
+        this.courseCsv = dataDir.resolve("courses.csv");
+        this.enrollmentCsv = dataDir.resolve("enrollments.csv");
+        this.workers = workers;
+    }
+
+    /**
+     * Turns one CSV row into a domain object on a worker thread.
+     * Throws IllegalArgumentException with a readable message if the row is invalid.
+     */
+    private interface RowParser<T> {
+        T parse(List<String> row);
+    }
+
+    /**
+     * Applies one parsed batch to a service on the importing thread.
+     */
+    private interface BatchSink<T> {
+        void apply(List<T> batch);
+    }
+
+    /**
+     * Renders or writes the transcripts of one chunk of students on a worker thread.
+     */
+    private interface TranscriptTask {
+        String run(List<Student> chunk) throws IOException;
+    }
+
+    /**
+     * Writes one domain object as a CSV record during an export.
+     */
+    private interface RowWriter<T> {
+        void write(CsvWriter writer, T row) throws IOException;
+    }
+
+    /**
+     * The objects parsed from one chunk, plus messages for the rows that were rejected.
+     */
+    private static class ParsedChunk<T> {
+        final List<T> items = new ArrayList<>();
+        final List<String> errors = new ArrayList<>();
+        int rows;
+    }
+
+    /**
+     * One row of a grade sheet after validation: either a grade update or
+     * the reason the row is invalid. Rows are numbered when they are applied,
+     * in file order, so the numbers match the sheet's lines.
+     */
+    private static class GradeRow {
+        final List<String> tokens;
+        GradeUpdate update;
+        String error;
+        long number;
+        int batchIndex;
+
+        GradeRow(List<String> tokens) {
+            this.tokens = tokens;
+        }
+
+        String field(int index) {
+            return index < tokens.size() ? tokens.get(index).trim() : "";
+        }
+
+        boolean isBlank() {
+            return tokens.stream().allMatch(String::isBlank);
+        }
+    }
 
     public void importStudents(StudentService studentService) throws IOException {
-        List<String> lines = Files.readAllLines(STUDENT_CSV);
-        if (lines.size() > 1) {
-            lines = lines.subList(1, lines.size());
-        } else {
-            return;
-        }
-        for (String line : lines) {
-            String[] tokens = line.split(",");
-            if (tokens.length >= 3) {
-                String regNo = tokens[0].trim();
-                String fullName = tokens[1].trim();
-                String email = tokens[2].trim();
-                try {
-                    studentService.addStudent(regNo, fullName, email);
-                } catch (IllegalArgumentException ignore) {
-                    // skip duplicates
-                }
-            }
+        try (Reader source = Files.newBufferedReader(studentCsv)) {
+            importStudents(studentService, source, studentCsv.getFileName().toString(), Files.size(studentCsv));
         }
     }
 
+    /**
+     * Imports students from a stream in the students.csv format.
+     * @param source The CSV text, header row included. The caller closes it.
+     * @param sourceName A name for the source, used in progress messages.
+     * @param sourceSize The size of the source, or 0 if unknown.
+     */
+    public void importStudents(StudentService studentService, Reader source, String sourceName, long sourceSize) throws IOException {
+        IMPORT_STUDENTS.time(() -> {
+            // Duplicate registration numbers are skipped by addStudents.
+            importCsv(source, sourceName, sourceSize, 3,
+                    tokens -> new Student(tokens.get(0).trim(), tokens.get(1).trim(), tokens.get(2).trim()),
+                    studentService::addStudents);
+        });
+    }
+
     public void exportStudents(List<Student> students) throws IOException {
-        StringBuilder sb = new StringBuilder();
-        sb.append("regNo,fullName,email\n");
-        for (Student s : students) {
-            sb.append(s.getRegNo()).append(",")
-              .append(s.getFullName()).append(",")
-              .append(s.getEmail()).append("\n");
-        }
-        Files.write(STUDENT_CSV, sb.toString().getBytes(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        EXPORT_STUDENTS.time(() -> {
+            exportCsv(studentCsv, students, (writer, s) -> writer.writeRecord(s.getRegNo(), s.getFullName(), s.getEmail()),
+                    "regNo", "fullName", "email");
+        });
     }
 
     public void importCourses(CourseService courseService) throws IOException {
-        List<String> lines = Files.readAllLines(COURSE_CSV);
-        if (lines.size() > 1) {
-            lines = lines.subList(1, lines.size());
-        } else {
-            return;
-        }
-        for (String line : lines) {
-            String[] tokens = line.split(",");
-            if (tokens.length >= 6) {
-                Course course = new Course.Builder()
-                        .setCode(tokens[0].trim())
-                        .setTitle(tokens[1].trim())
-                        .setCredits(Integer.parseInt(tokens[2].trim()))
-                        .setInstructor(tokens[3].trim())
-                        .setSemester(Semester.valueOf(tokens[4].trim().toUpperCase()))
-                        .setDepartment(tokens[5].trim())
-                        .build();
+        try (Reader source = Files.newBufferedReader(courseCsv)) {
+            importCourses(courseService, source, courseCsv.getFileName().toString(), Files.size(courseCsv));
+        }
+    }
+
+    /**
+     * Imports courses from a stream in the courses.csv format.
+     * @param source The CSV text, header row included. The caller closes it.
+     * @param sourceName A name for the source, used in progress messages.
+     * @param sourceSize The size of the source, or 0 if unknown.
+     */
+    public void importCourses(CourseService courseService, Reader source, String sourceName, long sourceSize) throws IOException {
+        IMPORT_COURSES.time(() -> {
+            // Duplicate course codes are skipped by addCourses.
+            importCsv(source, sourceName, sourceSize, 6,
+                    tokens -> new Course.Builder()
+                            .setCode(tokens.get(0).trim())
+                            .setTitle(tokens.get(1).trim())
+                            .setCredits(Integer.parseInt(tokens.get(2).trim()))
+                            .setInstructor(tokens.get(3).trim())
+                            .setSemester(Semester.valueOf(tokens.get(4).trim().toUpperCase()))
+                            .setDepartment(tokens.get(5).trim())
+                            .build(),
+                    courseService::addCourses);
+        });
+    }
+
+    public void exportCourses(List<Course> courses) throws IOException {
+        EXPORT_COURSES.time(() -> {
+            exportCsv(courseCsv, courses, (writer, c) -> writer.writeRecord(c.getCode(), c.getTitle(), c.getCredits(),
+                            c.getInstructor(), c.getSemester(), c.getDepartment()),
+                    "code", "title", "credits", "instructor", "semester", "department");
+        });
+    }
+
+    /**
+     * Imports enrollments. Students and courses must already be loaded, since the
+     * workers resolve both while validating each row.
+     */
+    public void importEnrollments(EnrollmentService enrollmentService) throws IOException {
+        try (Reader source = Files.newBufferedReader(enrollmentCsv)) {
+            importEnrollments(enrollmentService, source, enrollmentCsv.getFileName().toString(), Files.size(enrollmentCsv));
+        }
+    }
+
+    /**
+     * Imports enrollments from a stream in the enrollments.csv format.
+     * @param source The CSV text, header row included. The caller closes it.
+     * @param sourceName A name for the source, used in progress messages.
+     * @param sourceSize The size of the source, or 0 if unknown.
+     */
+    public void importEnrollments(EnrollmentService enrollmentService, Reader source, String sourceName, long sourceSize) throws IOException {
+        IMPORT_ENROLLMENTS.time(() -> {
+            importCsv(source, sourceName, sourceSize, 2,
+                    tokens -> {
+                        // The grade and enrollment date columns are optional; older files only have the first two.
+                        LocalDate date = tokens.size() > 3 && !tokens.get(3).isBlank()
+                                ? parseDate(tokens.get(3).trim()) : LocalDate.now();
+                        Enrollment enrollment = enrollmentService.prepareEnrollment(tokens.get(0).trim(), tokens.get(1).trim(), date);
+                        if (tokens.size() > 2 && !tokens.get(2).isBlank()) {
+                            enrollment.setGrade(Grade.valueOf(tokens.get(2).trim().toUpperCase()));
+                        }
+                        return enrollment;
+                    },
+                    batch -> {
+                        for (Map.Entry<Enrollment, Exception> rejected : enrollmentService.enrollAll(batch).entrySet()) {
+                            Enrollment e = rejected.getKey();
+                            System.out.println("Could not enroll student " + e.getStudent().getRegNo() + " in course "
+                                    + e.getCourse().getCode() + ": " + rejected.getValue().getMessage());
+                        }
+                    });
+        });
+    }
+
+    /**
+     * Imports a grade sheet (regNo, courseCode, grade, with a header row), such
+     * as an end-of-term upload for a whole department. If any rows are
+     * rejected, they are also written with their reasons to a CSV file next
+     * to the sheet, named after it with ".rejected.csv" appended.
+     * @param sheet The grade sheet.
+     * @return The rows read and applied, throughput and every rejected row.
+     */
+    public GradeImportReport importGrades(EnrollmentService enrollmentService, Path sheet) throws IOException {
+        GradeImportReport report;
+        try (Reader source = Files.newBufferedReader(sheet)) {
+            report = importGrades(enrollmentService, source, sheet.getFileName().toString(), Files.size(sheet));
+        }
+        if (!report.getRejections().isEmpty()) {
+            exportCsv(sheet.resolveSibling(sheet.getFileName() + ".rejected.csv"), report.getRejections(),
+                    (writer, r) -> writer.writeRecord(r.getRow(), r.getRegNo(), r.getCourseCode(), r.getGrade(), r.getReason()),
+                    "row", "regNo", "courseCode", "grade", "reason");
+        }
+        return report;
+    }
+
+    /**
+     * Imports a grade sheet from a stream. Workers validate the rows in
+     * parallel (each needs a registration number, a course code and a valid
+     * grade); each chunk of valid rows is then applied as one batch through
+     * EnrollmentService.recordGrades, which rejects rows whose student or
+     * course does not exist or whose student is not enrolled in the course.
+     * Blank lines are skipped and not counted; any other row is never skipped
+     * silently: every invalid or rejected row appears in the report.
+     * @param source The CSV text, header row included. The caller closes it.
+     * @param sourceName A name for the source, used in progress messages.
+     * @param sourceSize The size of the source, or 0 if unknown.
+     */
+    public GradeImportReport importGrades(EnrollmentService enrollmentService, Reader source, String sourceName,
+                                          long sourceSize) throws IOException {
+        return IMPORT_GRADES.time(() -> {
+            long started = System.nanoTime();
+            List<GradeImportReport.Rejection> rejections = new ArrayList<>();
+            // The header is line 1; then the blank lines skipped and the rows graded.
+            long[] counts = {1, 0, 0};
+            // No minimum field count, so every line reaches the parser and is numbered,
+            // which keeps row numbers in the report equal to line numbers in the sheet.
+            importCsv(source, sourceName, sourceSize, 0,
+                    tokens -> {
+                        GradeRow row = new GradeRow(tokens);
+                        if (row.isBlank()) {
+                            return row;
+                        }
+                        try {
+                            if (tokens.size() < 3) {
+                                throw new IllegalArgumentException("Expected regNo, courseCode and grade");
+                            }
+                            row.update = new GradeUpdate(row.field(0), row.field(1), parseGrade(row.field(2)));
+                        } catch (IllegalArgumentException e) {
+                            row.error = e.getMessage();
+                        }
+                        return row;
+                    },
+                    batch -> {
+                        List<GradeUpdate> updates = new ArrayList<>(batch.size());
+                        for (GradeRow row : batch) {
+                            row.number = ++counts[0];
+                            if (row.update != null) {
+                                row.batchIndex = updates.size();
+                                updates.add(row.update);
+                            }
+                        }
+                        Map<Integer, Exception> failed = enrollmentService.recordGrades(updates);
+                        for (GradeRow row : batch) {
+                            if (row.update == null && row.error == null) {
+                                counts[2]++;
+                                continue;
+                            }
+                            Exception failure = row.update == null ? null : failed.get(row.batchIndex);
+                            if (row.error != null || failure != null) {
+                                rejections.add(new GradeImportReport.Rejection(row.number, row.field(0), row.field(1),
+                                        row.field(2), row.error != null ? row.error : failure.getMessage()));
+                            } else {
+                                counts[1]++;
+                            }
+                        }
+                    });
+            return new GradeImportReport(counts[0] - 1 - counts[2], counts[1], rejections, (System.nanoTime() - started) / 1e9);
+        });
+    }
+
+    /**
+     * Exports every enrollment together with its grade and enrollment date.
+     */
+    public void exportEnrollments(List<Enrollment> enrollments) throws IOException {
+        EXPORT_ENROLLMENTS.time(() -> {
+            exportCsv(enrollmentCsv, enrollments, (writer, e) -> writer.writeRecord(e.getStudent().getRegNo(),
+                            e.getCourse().getCode(), e.getGrade(), e.getEnrollmentDate()),
+                    "regNo", "courseCode", "grade", "enrollmentDate");
+        });
+    }
+
+    /**
+     * Writes the transcript of every student, such as at the end of a semester,
+     * in the same layout as TranscriptService.generateTranscriptView.
+     *
+     * Workers render the transcripts of a chunk of students at a time in
+     * parallel. The export reads point-in-time snapshots of the students and
+     * enrollments, so it sees one consistent state and never blocks changes.
+     * With a single file, the rendered chunks are written in student order
+     * through a temporary file that is renamed into place; at most two chunks
+     * per worker are held in memory at once. With one file per student, each
+     * worker writes its chunk's files itself. Prints the number of transcripts
+     * and transcripts/second.
+     *
+     * @param target The file to write, or the directory to write the files into.
+     * @param perStudent True to write one file per student, named after the
+     *                   registration number with a .txt extension.
+     * @return The number of transcripts written.
+     */
+    public int exportTranscripts(StudentService studentService, EnrollmentService enrollmentService,
+                                 TranscriptService transcriptService, Path target, boolean perStudent) throws IOException {
+        return EXPORT_TRANSCRIPTS.time(() -> {
+            long started = System.nanoTime();
+            // Enrollments first, so every student they mention is in the student list.
+            EnrollmentSnapshot enrollments = enrollmentService.snapshot();
+            List<Student> students = studentService.listStudents();
+            if (perStudent) {
+                Path dir = Files.createDirectories(target);
+                renderTranscripts(students, chunk -> {
+                    StringBuilder sb = new StringBuilder();
+                    for (Student student : chunk) {
+                        sb.setLength(0);
+                        transcriptService.appendTranscriptView(sb, student.getFullName(),
+                                enrollments.getEnrollmentsForStudent(student.getRegNo()));
+                        Files.writeString(dir.resolve(transcriptFileName(student.getRegNo())), sb);
+                    }
+                    return "";
+                }, null);
+            } else {
+                Path dir = target.toAbsolutePath().getParent();
+                Files.createDirectories(dir);
+                Path temp = dir.resolve(target.getFileName() + ".tmp");
                 try {
-                    courseService.addCourse(course);
-                } catch (IllegalArgumentException ignore) {
-                    // skip duplicates
+                    try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                         Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE)) {
+                        renderTranscripts(students, chunk -> {
+                            StringBuilder sb = new StringBuilder(chunk.size() * 512);
+                            for (Student student : chunk) {
+                                transcriptService.appendTranscriptView(sb, student.getFullName(),
+                                        enrollments.getEnrollmentsForStudent(student.getRegNo()));
+                            }
+                            return sb.toString();
+                        }, writer);
+                        writer.flush();
+                        channel.force(true);
+                    }
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException | RuntimeException e) {
+                    Files.deleteIfExists(temp);
+                    throw e;
+                }
+            }
+            double seconds = (System.nanoTime() - started) / 1e9;
+            System.out.println(String.format("Exported %,d transcripts to %s in %.2f s (%,.0f transcripts/s)",
+                    students.size(), target, seconds, seconds > 0 ? students.size() / seconds : 0));
+            return students.size();
+        });
+    }
+
+    /**
+     * Private helper that keeps only characters that are safe in a file name.
+     */
+    private static String transcriptFileName(String regNo) {
+        return regNo.replaceAll("[^A-Za-z0-9._-]", "_") + ".txt";
+    }
+
+    /**
+     * Runs a task over the students in fixed-size chunks on the worker pool,
+     * with at most two chunks per worker in flight, and writes each chunk's
+     * result to out (if not null) in student order.
+     */
+    private void renderTranscripts(List<Student> students, TranscriptTask task, Writer out) throws IOException {
+        ExecutorService pool = newPool("ccrm-transcripts");
+        Deque<Future<String>> inFlight = new ArrayDeque<>();
+        try {
+            for (int from = 0; from < students.size(); from += TRANSCRIPT_CHUNK_SIZE) {
+                List<Student> chunk = students.subList(from, Math.min(from + TRANSCRIPT_CHUNK_SIZE, students.size()));
+                inFlight.add(pool.submit(() -> task.run(chunk)));
+                if (inFlight.size() >= workers * 2) {
+                    writeChunk(inFlight.poll(), out);
                 }
             }
+            while (!inFlight.isEmpty()) {
+                writeChunk(inFlight.poll(), out);
+            }
+        } finally {
+            pool.shutdownNow();
         }
     }
 
-    public void exportCourses(List<Course> courses) throws IOException {
-        StringBuilder sb = new StringBuilder();
-        sb.append("code,title,credits,instructor,semester,department\n");
-        for (Course c : courses) {
-            sb.append(c.getCode()).append(",")
-              .append(c.getTitle()).append(",")
-              .append(c.getCredits()).append(",")
-              .append(c.getInstructor()).append(",")
-              .append(c.getSemester()).append(",")
-              .append(c.getDepartment()).append("\n");
+    /**
+     * Waits for a rendered chunk and writes it on the exporting thread.
+     */
+    private static void writeChunk(Future<String> future, Writer out) throws IOException {
+        String text;
+        try {
+            text = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Export interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Export failed: " + e.getCause().getMessage(), e.getCause());
+        }
+        if (out != null) {
+            out.write(text);
         }
-        Files.write(COURSE_CSV, sb.toString().getBytes(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
     }
 
-    public void importEnrollments(EnrollmentService enrollmentService) throws IOException {
-        List<String> lines = Files.readAllLines(ENROLLMENT_CSV);
-        if (lines.size() > 1) {
-            lines = lines.subList(1, lines.size());
-        } else {
-            return;
-        }
-
-        for (String line : lines) {
-            String[] tokens = line.split(",");
-            if (tokens.length >= 2) {
-                String regNo = tokens[0].trim();
-                String courseCode = tokens[1].trim();
-                try {
-                    enrollmentService.enrollStudent(regNo, courseCode);
-                } catch (MaxCreditLimitExceededException | DuplicateEnrollmentException e) {
-                    System.out.println("Could not enroll student " + regNo + " in course " + courseCode + ": " + e.getMessage());
+    /**
+     * Creates a pool of one daemon thread per worker.
+     */
+    private ExecutorService newPool(String threadName) {
+        return Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Streams rows to a temporary file next to the target through a buffered
+     * channel, forces it to disk and then atomically renames it over the target.
+     * If anything fails part-way the temporary file is deleted and the previous
+     * export is left untouched. Prints the row count and throughput in MB/s.
+     */
+    private <T> void exportCsv(Path target, List<T> rows, RowWriter<T> rowWriter, String... header) throws IOException {
+        long start = System.nanoTime();
+        Path dir = target.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        // A plain sibling file rather than createTempFile, which would make the export owner-only (0600).
+        Path temp = dir.resolve(target.getFileName() + ".tmp");
+        long bytes;
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                 CsvWriter writer = new CsvWriter(new BufferedWriter(
+                         Channels.newWriter(channel, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE))) {
+                writer.writeRecord((Object[]) header);
+                for (T row : rows) {
+                    rowWriter.write(writer, row);
                 }
+                writer.flush();
+                channel.force(true);
+                bytes = channel.size();
             }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        double megabytes = bytes / (1024.0 * 1024.0);
+        System.out.println(String.format("Exported %,d rows to %s (%.2f MB in %.2f s, %.1f MB/s)",
+                rows.size(), target.getFileName(), megabytes, seconds, seconds > 0 ? megabytes / seconds : 0));
+    }
+
+    /**
+     * Streams CSV text through the parse/apply pipeline in fixed-size chunks.
+     * The header row is skipped, as are rows with fewer than minFields fields.
+     * At most two chunks per worker are in flight, so memory stays bounded, and
+     * batches are applied in file order. Progress and rows/second are reported
+     * as batches are applied. The source is left open for the caller to close.
+     */
+    private <T> void importCsv(Reader source, String sourceName, long sourceSize, int minFields,
+                               RowParser<T> parser, BatchSink<T> sink) throws IOException {
+        ImportProgress progress = new ImportProgress(sourceName, sourceSize);
+        ExecutorService pool = newPool("ccrm-import");
+        Deque<Future<ParsedChunk<T>>> inFlight = new ArrayDeque<>();
+        CsvReader reader = new CsvReader(source);
+        try {
+            if (reader.readRecord() == null) {
+                return;
+            }
+            while (true) {
+                List<List<String>> chunk = new ArrayList<>(CHUNK_SIZE);
+                if (reader.readChunk(chunk, CHUNK_SIZE) == 0) {
+                    break;
+                }
+                inFlight.add(pool.submit(() -> parseChunk(chunk, minFields, parser)));
+                if (inFlight.size() >= workers * 2) {
+                    applyChunk(inFlight.poll(), sink, progress, reader.getCharsRead());
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                applyChunk(inFlight.poll(), sink, progress, reader.getCharsRead());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        progress.finish();
+    }
+
+    /**
+     * Parses an enrollment date, reporting a bad value as an invalid row.
+     */
+    private static LocalDate parseDate(String value) {
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid enrollment date: " + value);
+        }
+    }
+
+    /**
+     * Parses a grade, reporting a bad value as an invalid row.
+     */
+    private static Grade parseGrade(String value) {
+        try {
+            return Grade.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid grade: " + value);
+        }
+    }
+
+    /**
+     * Runs on a worker thread: parses every row of a chunk, collecting errors instead of failing.
+     */
+    private static <T> ParsedChunk<T> parseChunk(List<List<String>> chunk, int minFields, RowParser<T> parser) {
+        ParsedChunk<T> parsed = new ParsedChunk<>();
+        parsed.rows = chunk.size();
+        for (List<String> tokens : chunk) {
+            if (tokens.size() < minFields) {
+                continue;
+            }
+            try {
+                parsed.items.add(parser.parse(tokens));
+            } catch (IllegalArgumentException e) {
+                parsed.errors.add("Skipping invalid row " + tokens + ": " + e.getMessage());
+            }
+        }
+        return parsed;
+    }
+
+    /**
+     * Waits for a parsed chunk and applies it on the importing thread.
+     */
+    private static <T> void applyChunk(Future<ParsedChunk<T>> future, BatchSink<T> sink,
+                                       ImportProgress progress, long bytesRead) throws IOException {
+        ParsedChunk<T> parsed;
+        try {
+            parsed = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Import failed: " + e.getCause().getMessage(), e.getCause());
         }
+        parsed.errors.forEach(System.out::println);
+        sink.apply(parsed.items);
+        progress.update(parsed.rows, bytesRead);
     }
 }
\ No newline at end of file
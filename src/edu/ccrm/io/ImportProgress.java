@@ -0,0 +1,63 @@
+package edu.ccrm.io;
+
+/**
+ * Tracks and prints progress for a long-running import.
+ * A progress line with the percentage read and the current rows/second is
+ * printed at most once per report interval, followed by a summary at the end.
+ */
+public class ImportProgress {
+    private static final long REPORT_INTERVAL_NANOS = 2_000_000_000L;
+
+    private final String source;
+    private final long totalSize;
+    private final long startNanos;
+    private long lastReportNanos;
+    private long rows;
+
+    /**
+     * @param source A name for what is being imported, used in the messages.
+     * @param totalSize The size of the input in bytes, or 0 if unknown.
+     */
+    public ImportProgress(String source, long totalSize) {
+        this.source = source;
+        this.totalSize = totalSize;
+        this.startNanos = System.nanoTime();
+        this.lastReportNanos = startNanos;
+    }
+
+    /**
+     * Records that another chunk of rows has been processed.
+     * @param chunkRows The number of rows in the chunk.
+     * @param bytesRead How far into the input the reader is.
+     */
+    public void update(int chunkRows, long bytesRead) {
+        rows += chunkRows;
+        long now = System.nanoTime();
+        if (now - lastReportNanos >= REPORT_INTERVAL_NANOS) {
+            lastReportNanos = now;
+            String percent = totalSize > 0
+                    ? String.format("%.1f%%", Math.min(100.0, 100.0 * bytesRead / totalSize))
+                    : "?";
+            System.out.println(String.format("Importing %s: %,d rows (%s, %,.0f rows/s)",
+                    source, rows, percent, getRowsPerSecond()));
+        }
+    }
+
+    /**
+     * Prints a summary line once the import is done.
+     */
+    public void finish() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        System.out.println(String.format("Imported %,d rows from %s in %.2f s (%,.0f rows/s)",
+                rows, source, seconds, getRowsPerSecond()));
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public double getRowsPerSecond() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        return seconds > 0 ? rows / seconds : 0;
+    }
+}
@@ -0,0 +1,427 @@
+package edu.ccrm.io;
+
+import edu.ccrm.config.AppConfig;
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.EnrollmentService;
+import edu.ccrm.service.EnrollmentSnapshot;
+import edu.ccrm.service.StudentService;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Saves and loads the complete in-memory state (students, courses and
+ * enrollments with their grades and dates) as one binary snapshot file,
+ * data/ccrm.snapshot by default.
+ *
+ * The file is columnar: after a small header, every field is stored as its
+ * own column, prefixed by the column's length in bytes. Numbers are fixed
+ * width, and a string column is the strings' UTF-8 bytes followed by an
+ * offset table. Enrollments refer to students and courses by their position
+ * in the snapshot, so loading needs no lookups. Loading reads each column in
+ * one bulk read, builds the domain objects straight from it and hands them to
+ * the services' bulk methods without re-running per-row validation, so it
+ * takes time in proportion to the file size.
+ *
+ * The snapshot is only used while it is current: if any of the CSV files is
+ * newer (for example after an archive was restored into data/), the caller
+ * should import the CSV files instead.
+ */
+public class SnapshotService {
+    private static final byte[] MAGIC = {'C', 'C', 'R', 'M', 'S', 'N', 'P', '1'};
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private static final String[] CSV_FILES = {"students.csv", "courses.csv", "enrollments.csv"};
+
+    private final Path dataDir;
+    private final Path snapshotFile;
+
+    public SnapshotService() {
+        this(AppConfig.getInstance().getDataDir());
+    }
+
+    /**
+     * @param dataDir The directory holding the snapshot and the CSV files it stands in for.
+     */
+    public SnapshotService(Path dataDir) {
+        this.dataDir = dataDir;
+        this.snapshotFile = dataDir.resolve("ccrm.snapshot");
+    }
+
+    /**
+     * @return true if a snapshot exists and no CSV file has been modified since it was written.
+     */
+    public boolean isCurrent() throws IOException {
+        if (!Files.isRegularFile(snapshotFile)) {
+            return false;
+        }
+        FileTime saved = Files.getLastModifiedTime(snapshotFile);
+        for (String name : CSV_FILES) {
+            Path csv = dataDir.resolve(name);
+            if (Files.exists(csv) && Files.getLastModifiedTime(csv).compareTo(saved) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes the services' current state to the snapshot file, via a temp file
+     * and an atomic rename.
+     */
+    public void save(StudentService studentService, CourseService courseService,
+                     EnrollmentService enrollmentService) throws IOException {
+        long start = System.nanoTime();
+        // Enrollments first: students and courses are only ever added, so both
+        // lists taken afterwards contain everyone the enrollments refer to.
+        EnrollmentSnapshot snapshot = enrollmentService.snapshot();
+        List<Student> students = studentService.listStudents();
+        List<Course> courses = courseService.listCourses();
+        Map<String, Integer> studentIndex = new HashMap<>(students.size() * 2);
+        for (int i = 0; i < students.size(); i++) {
+            studentIndex.put(students.get(i).getRegNo(), i);
+        }
+        Map<String, Integer> courseIndex = new HashMap<>(courses.size() * 2);
+        for (int i = 0; i < courses.size(); i++) {
+            courseIndex.put(courses.get(i).getCode(), i);
+        }
+        // Student by student, so each student's enrollments keep their order.
+        List<Enrollment> enrollments = new ArrayList<>();
+        for (Student student : students) {
+            enrollments.addAll(snapshot.getEnrollmentsForStudent(student.getRegNo()));
+        }
+
+        Files.createDirectories(dataDir);
+        Path temp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        long bytes;
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ColumnWriter out = new ColumnWriter(channel);
+                out.buffer.put(MAGIC);
+                out.buffer.putInt(VERSION);
+                out.buffer.putInt(enumFingerprint());
+                out.buffer.putInt(students.size());
+                out.buffer.putInt(courses.size());
+                out.buffer.putInt(enrollments.size());
+
+                out.writeStrings(students, Student::getRegNo);
+                out.writeStrings(students, Student::getFullName);
+                out.writeStrings(students, Student::getEmail);
+                out.writeBytes(students, s -> s.getStatus().ordinal());
+                out.writeInts(students, s -> (int) s.getJoinedDate().toEpochDay());
+
+                out.writeStrings(courses, Course::getCode);
+                out.writeStrings(courses, Course::getTitle);
+                out.writeInts(courses, Course::getCredits);
+                out.writeStrings(courses, Course::getInstructor);
+                out.writeBytes(courses, c -> c.getSemester().ordinal());
+                out.writeStrings(courses, Course::getDepartment);
+
+                out.writeInts(enrollments, e -> studentIndex.get(e.getStudent().getRegNo()));
+                out.writeInts(enrollments, e -> courseIndex.get(e.getCourse().getCode()));
+                out.writeBytes(enrollments, e -> e.getGrade().ordinal());
+                out.writeInts(enrollments, e -> (int) e.getEnrollmentDate().toEpochDay());
+                out.flush();
+                channel.force(true);
+                bytes = channel.size();
+            }
+            Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(String.format("Snapshot saved: %,d students, %,d courses, %,d enrollments (%.2f MB in %.2f s)",
+                students.size(), courses.size(), enrollments.size(), bytes / (1024.0 * 1024.0), seconds));
+    }
+
+    /**
+     * Loads the snapshot into the services. The whole file is checked and
+     * decoded before anything is added, so a damaged snapshot throws an
+     * IOException and leaves the services untouched.
+     */
+    public void load(StudentService studentService, CourseService courseService,
+                     EnrollmentService enrollmentService) throws IOException {
+        long start = System.nanoTime();
+        List<Student> students;
+        List<Course> courses;
+        List<Enrollment> enrollments;
+        try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(MAGIC.length + 5 * Integer.BYTES);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Keep reading until the header is complete or the file ends.
+            }
+            header.flip();
+            byte[] magic = new byte[MAGIC.length];
+            if (header.remaining() < header.capacity()) {
+                throw new IOException("Snapshot is truncated");
+            }
+            header.get(magic);
+            if (!Arrays.equals(magic, MAGIC) || header.getInt() != VERSION) {
+                throw new IOException("Not a CCRM snapshot, or written by another version");
+            }
+            if (header.getInt() != enumFingerprint()) {
+                throw new IOException("Snapshot was written with different grade, semester or status values");
+            }
+            int studentCount = header.getInt();
+            int courseCount = header.getInt();
+            int enrollmentCount = header.getInt();
+
+            // Dates repeat a lot, and LocalDate is immutable, so equal dates share one object.
+            Map<Integer, LocalDate> dateCache = new HashMap<>();
+            try {
+                ColumnReader in = new ColumnReader(channel, header.capacity());
+                String[] regNos = in.readStrings(studentCount);
+                String[] names = in.readStrings(studentCount);
+                String[] emails = in.readStrings(studentCount);
+                ByteBuffer statuses = in.readColumn(studentCount);
+                IntBuffer joined = in.readColumn(studentCount * Integer.BYTES).asIntBuffer();
+                Student.Status[] statusValues = Student.Status.values();
+                students = new ArrayList<>(studentCount);
+                for (int i = 0; i < studentCount; i++) {
+                    Student student = new Student(regNos[i], names[i], emails[i],
+                            dateCache.computeIfAbsent(joined.get(i), LocalDate::ofEpochDay));
+                    student.setStatus(statusValues[statuses.get(i)]);
+                    students.add(student);
+                }
+
+                String[] codes = in.readStrings(courseCount);
+                String[] titles = in.readStrings(courseCount);
+                IntBuffer credits = in.readColumn(courseCount * Integer.BYTES).asIntBuffer();
+                String[] instructors = in.readStrings(courseCount);
+                ByteBuffer semesters = in.readColumn(courseCount);
+                String[] departments = in.readStrings(courseCount);
+                Semester[] semesterValues = Semester.values();
+                courses = new ArrayList<>(courseCount);
+                for (int i = 0; i < courseCount; i++) {
+                    courses.add(new Course.Builder()
+                            .setCode(codes[i])
+                            .setTitle(titles[i])
+                            .setCredits(credits.get(i))
+                            .setInstructor(instructors[i])
+                            .setSemester(semesterValues[semesters.get(i)])
+                            .setDepartment(departments[i])
+                            .build());
+                }
+
+                IntBuffer studentRefs = in.readColumn(enrollmentCount * Integer.BYTES).asIntBuffer();
+                IntBuffer courseRefs = in.readColumn(enrollmentCount * Integer.BYTES).asIntBuffer();
+                ByteBuffer grades = in.readColumn(enrollmentCount);
+                IntBuffer dates = in.readColumn(enrollmentCount * Integer.BYTES).asIntBuffer();
+                Grade[] gradeValues = Grade.values();
+                enrollments = new ArrayList<>(enrollmentCount);
+                for (int i = 0; i < enrollmentCount; i++) {
+                    Enrollment enrollment = new Enrollment(students.get(studentRefs.get(i)), courses.get(courseRefs.get(i)),
+                            dateCache.computeIfAbsent(dates.get(i), LocalDate::ofEpochDay));
+                    enrollment.setGrade(gradeValues[grades.get(i)]);
+                    enrollments.add(enrollment);
+                }
+            } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+                throw new IOException("Snapshot is damaged: " + e.getMessage(), e);
+            }
+        }
+
+        studentService.addStudents(students);
+        courseService.addCourses(courses);
+        enrollmentService.restoreAll(enrollments);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(String.format("Snapshot loaded: %,d students, %,d courses, %,d enrollments in %.2f s",
+                students.size(), courses.size(), enrollments.size(), seconds));
+    }
+
+    /**
+     * Private helper that summarises the enum constants stored by ordinal, so a
+     * snapshot written before one of them changed is rejected instead of misread.
+     */
+    private static int enumFingerprint() {
+        return Arrays.hashCode(new Object[]{
+                Arrays.toString(Grade.values()), Arrays.toString(Semester.values()), Arrays.toString(Student.Status.values())});
+    }
+
+    /**
+     * Extracts one column value from a row.
+     */
+    private interface IntColumn<T> {
+        int get(T row);
+    }
+
+    /**
+     * Extracts one string column value from a row.
+     */
+    private interface StringColumn<T> {
+        String get(T row);
+    }
+
+    /**
+     * Writes length-prefixed columns through one reusable buffer. A column's
+     * length is patched in once the column is complete.
+     */
+    private static class ColumnWriter {
+        final FileChannel channel;
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.BIG_ENDIAN);
+        long position;
+
+        ColumnWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        <T> void writeInts(List<T> rows, IntColumn<T> column) throws IOException {
+            long lengthAt = beginColumn();
+            for (T row : rows) {
+                ensure(Integer.BYTES);
+                buffer.putInt(column.get(row));
+            }
+            endColumn(lengthAt);
+        }
+
+        <T> void writeBytes(List<T> rows, IntColumn<T> column) throws IOException {
+            long lengthAt = beginColumn();
+            for (T row : rows) {
+                ensure(1);
+                buffer.put((byte) column.get(row));
+            }
+            endColumn(lengthAt);
+        }
+
+        /**
+         * Writes the UTF-8 bytes of every string, then the table of where each one starts.
+         */
+        <T> void writeStrings(List<T> rows, StringColumn<T> column) throws IOException {
+            long lengthAt = beginColumn();
+            int[] offsets = new int[rows.size() + 1];
+            int offset = 0;
+            for (int i = 0; i < rows.size(); i++) {
+                offsets[i] = offset;
+                String value = column.get(rows.get(i));
+                byte[] utf8 = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+                putBytes(utf8);
+                offset += utf8.length;
+            }
+            offsets[rows.size()] = offset;
+            for (int value : offsets) {
+                ensure(Integer.BYTES);
+                buffer.putInt(value);
+            }
+            endColumn(lengthAt);
+        }
+
+        private long beginColumn() throws IOException {
+            ensure(Long.BYTES);
+            long lengthAt = position + buffer.position();
+            buffer.putLong(0L);
+            return lengthAt;
+        }
+
+        private void endColumn(long lengthAt) throws IOException {
+            flush();
+            ByteBuffer length = ByteBuffer.allocate(Long.BYTES);
+            length.putLong(position - lengthAt - Long.BYTES).flip();
+            while (length.hasRemaining()) {
+                channel.write(length, lengthAt + length.position());
+            }
+        }
+
+        private void putBytes(byte[] bytes) throws IOException {
+            int offset = 0;
+            while (offset < bytes.length) {
+                ensure(1);
+                int count = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, count);
+                offset += count;
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Walks the length-prefixed columns, reading each one whole.
+     */
+    private static class ColumnReader {
+        final FileChannel channel;
+        long position;
+
+        ColumnReader(FileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+        }
+
+        /**
+         * Maps the next column and checks it holds at least the expected number of bytes.
+         */
+        ByteBuffer readColumn(long expectedLength) throws IOException {
+            ByteBuffer lengthBuffer = ByteBuffer.allocate(Long.BYTES);
+            while (lengthBuffer.hasRemaining()) {
+                if (channel.read(lengthBuffer, position + lengthBuffer.position()) < 0) {
+                    throw new IOException("Snapshot is truncated");
+                }
+            }
+            long length = lengthBuffer.flip().getLong();
+            if (length < expectedLength || position + Long.BYTES + length > channel.size()) {
+                throw new IOException("Snapshot is damaged: column at byte " + position + " has a bad length");
+            }
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot column at byte " + position + " is too large");
+            }
+            // One bulk read per column. Not memory-mapped: a mapping keeps the file
+            // locked on Windows until it is garbage collected, which would make the
+            // next save's atomic rename over it fail.
+            ByteBuffer column = ByteBuffer.allocate((int) length);
+            long from = position + Long.BYTES;
+            while (column.hasRemaining()) {
+                if (channel.read(column, from + column.position()) < 0) {
+                    throw new IOException("Snapshot is truncated");
+                }
+            }
+            column.flip();
+            position += Long.BYTES + length;
+            return column;
+        }
+
+        String[] readStrings(int count) throws IOException {
+            ByteBuffer column = readColumn((long) (count + 1) * Integer.BYTES);
+            int tableAt = column.limit() - (count + 1) * Integer.BYTES;
+            IntBuffer offsets = column.duplicate().position(tableAt).slice().asIntBuffer();
+            String[] values = new String[count];
+            byte[] scratch = new byte[256];
+            for (int i = 0; i < count; i++) {
+                int from = offsets.get(i);
+                int length = offsets.get(i + 1) - from;
+                if (length > scratch.length) {
+                    scratch = new byte[Math.max(length, scratch.length * 2)];
+                }
+                column.get(from, scratch, 0, length);
+                values[i] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+            }
+            return values;
+        }
+    }
+}
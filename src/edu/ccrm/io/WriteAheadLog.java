@@ -0,0 +1,567 @@
+package edu.ccrm.io;
+
+import edu.ccrm.config.AppConfig;
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.service.CourseListener;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.EnrollmentListener;
+import edu.ccrm.service.EnrollmentService;
+import edu.ccrm.service.StudentListener;
+import edu.ccrm.service.StudentService;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead log of every change made through the services,
+ * kept in data/ccrm.wal by default.
+ *
+ * Register it as a listener on StudentService, CourseService and
+ * EnrollmentService; each added or updated student or course, enrollment,
+ * unenrollment and grade change is then appended as one record while the
+ * service makes it. Appending never waits for the disk: the service's own
+ * locks are still held at that point, and waiting there would queue every
+ * other change behind the fsync. The wait happens in onChangesComplete,
+ * which the services call after releasing their locks and before returning,
+ * so a call only reports success once its records are as durable as the
+ * mode promises, and fails with an UncheckedIOException otherwise.
+ *
+ * At startup, replay() re-applies the log on top of whatever the snapshot or
+ * CSV files held, and once the full state has been saved again,
+ * checkpoint() empties the log.
+ *
+ * Each record is framed as [int length][int CRC32][payload], so a record
+ * torn by a crash mid-write is detected and dropped on replay.
+ *
+ * How soon a record is forced to disk depends on the Durability mode. Code
+ * that makes many changes in a row, such as an import, can wrap them in
+ * beginBatch() and endBatch() to have them forced once at the end instead.
+ */
+public class WriteAheadLog implements StudentListener, CourseListener, EnrollmentListener, AutoCloseable {
+
+    /**
+     * When an appended record is known to be on disk.
+     */
+    public enum Durability {
+        /** Every record is written and forced to disk before the change returns. */
+        PER_OP,
+        /**
+         * Group commit: callers wait until their record is on disk, but a single
+         * writer thread forces everything appended so far with one fsync, so
+         * concurrent changes share the cost.
+         */
+        BATCHED,
+        /**
+         * Changes return at once and the writer thread forces them every few
+         * milliseconds; a crash can lose the last interval's changes.
+         */
+        ASYNC
+    }
+
+    private static final byte STUDENT_ADDED = 1;
+    private static final byte STUDENT_UPDATED = 2;
+    private static final byte COURSE_ADDED = 3;
+    private static final byte COURSE_UPDATED = 4;
+    private static final byte ENROLLED = 5;
+    private static final byte UNENROLLED = 6;
+    private static final byte GRADE_CHANGED = 7;
+
+    private static final long ASYNC_FLUSH_MILLIS = 10;
+    private static final int MAX_RECORD_LENGTH = 1024 * 1024;
+
+    private final Path logFile;
+    private final Durability durability;
+    private final FileChannel channel;
+    private final Object lock = new Object();
+    // Records appended but not yet written; guarded by lock.
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private long appendedSeq;
+    private long durableSeq;
+    private IOException failure;
+    private boolean closed;
+    private final Thread writer;
+    private final ThreadLocal<int[]> batchDepth = ThreadLocal.withInitial(() -> new int[1]);
+    // The last record this thread appended and has not yet waited for; 0 if none.
+    private final ThreadLocal<long[]> unsynced = ThreadLocal.withInitial(() -> new long[1]);
+
+    /**
+     * Opens data/ccrm.wal with group commit.
+     */
+    public WriteAheadLog() throws IOException {
+        this(AppConfig.getInstance().getDataDir().resolve("ccrm.wal"), Durability.BATCHED);
+    }
+
+    /**
+     * @param logFile The log file; created if it does not exist, appended to if it does.
+     * @param durability When appended records are forced to disk.
+     */
+    public WriteAheadLog(Path logFile, Durability durability) throws IOException {
+        this.logFile = logFile;
+        this.durability = durability;
+        Path dir = logFile.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        this.channel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.channel.position(channel.size());
+        if (durability == Durability.PER_OP) {
+            this.writer = null;
+        } else {
+            this.writer = new Thread(this::runWriter, "ccrm-wal");
+            this.writer.setDaemon(true);
+            this.writer.start();
+        }
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    /**
+     * Re-applies every intact record in the log to the services. Call it after
+     * loading the snapshot or CSV files and before registering this log as a
+     * listener. Records that no longer apply (a student that already exists, an
+     * enrollment that is already there) are skipped, so replaying on top of a
+     * state that already contains some of the changes is safe. A torn record at
+     * the end of the log is cut off.
+     * @return The number of records replayed.
+     */
+    public int replay(StudentService studentService, CourseService courseService,
+                      EnrollmentService enrollmentService) throws IOException {
+        long start = System.nanoTime();
+        int records = 0;
+        long validLength = 0;
+        try (InputStream file = Files.newInputStream(logFile);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(file, 256 * 1024))) {
+            CRC32 crc = new CRC32();
+            while (true) {
+                byte[] payload;
+                try {
+                    int length = in.readInt();
+                    int checksum = in.readInt();
+                    if (length <= 0 || length > MAX_RECORD_LENGTH) {
+                        break;
+                    }
+                    payload = new byte[length];
+                    in.readFully(payload);
+                    crc.reset();
+                    crc.update(payload);
+                    if ((int) crc.getValue() != checksum) {
+                        break;
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+                apply(payload, studentService, courseService, enrollmentService);
+                validLength += 8 + payload.length;
+                records++;
+            }
+        }
+        synchronized (lock) {
+            if (validLength < channel.size()) {
+                System.out.println(String.format("Write-ahead log: dropping %,d bytes of incomplete records at the end",
+                        channel.size() - validLength));
+                channel.truncate(validLength);
+                channel.force(true);
+            }
+            channel.position(validLength);
+        }
+        if (records > 0) {
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.println(String.format("Replayed %,d changes from the write-ahead log in %.2f s", records, seconds));
+        }
+        return records;
+    }
+
+    /**
+     * Starts a batch on the calling thread: until the matching endBatch, its
+     * changes are appended without waiting for the disk. Batches may nest.
+     */
+    public void beginBatch() {
+        batchDepth.get()[0]++;
+    }
+
+    /**
+     * Ends a batch started with beginBatch; the outermost one waits until every
+     * change made in the batch is on disk.
+     */
+    public void endBatch() throws IOException {
+        int[] depth = batchDepth.get();
+        if (depth[0] > 0 && --depth[0] == 0) {
+            sync();
+            unsynced.get()[0] = 0;
+        }
+    }
+
+    /**
+     * Waits until every record appended so far is on disk.
+     */
+    public void sync() throws IOException {
+        synchronized (lock) {
+            if (durability == Durability.PER_OP) {
+                checkFailure();
+                channel.force(false);
+                return;
+            }
+            awaitDurable(appendedSeq);
+        }
+    }
+
+    /**
+     * Empties the log. Call it only after the complete state has been saved
+     * in a snapshot, since the records are gone afterwards; the CSV export
+     * leaves out fields the log and the snapshot keep.
+     */
+    public void checkpoint() throws IOException {
+        synchronized (lock) {
+            sync();
+            channel.truncate(0);
+            channel.position(0);
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Forces any remaining records to disk, stops the writer thread and closes the file.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            try {
+                sync();
+            } finally {
+                closed = true;
+                lock.notifyAll();
+            }
+        }
+        if (writer != null) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        channel.close();
+    }
+
+    /**
+     * Waits until the records the calling thread has appended are on disk,
+     * as the durability mode requires, unless a batch is open. Called by the
+     * services once their locks are released.
+     * @throws UncheckedIOException if the records could not be written.
+     */
+    @Override
+    public void onChangesComplete() {
+        long[] seq = unsynced.get();
+        if (seq[0] == 0 || batchDepth.get()[0] > 0) {
+            return;
+        }
+        long awaited = seq[0];
+        seq[0] = 0;
+        try {
+            if (durability == Durability.PER_OP) {
+                synchronized (lock) {
+                    checkFailure();
+                }
+                // Outside the lock, so other threads keep appending during the fsync.
+                channel.force(false);
+            } else if (durability == Durability.BATCHED) {
+                synchronized (lock) {
+                    awaitDurable(awaited);
+                }
+            } else {
+                synchronized (lock) {
+                    checkFailure();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write to the write-ahead log: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void onStudentAdded(Student student) {
+        append(record(STUDENT_ADDED, out -> {
+            out.writeUTF(student.getRegNo());
+            writeString(out, student.getFullName());
+            writeString(out, student.getEmail());
+            out.writeLong(student.getJoinedDate().toEpochDay());
+            out.writeUTF(student.getStatus().name());
+        }));
+    }
+
+    @Override
+    public void onStudentUpdated(Student student) {
+        append(record(STUDENT_UPDATED, out -> {
+            out.writeUTF(student.getRegNo());
+            writeString(out, student.getEmail());
+            out.writeUTF(student.getStatus().name());
+        }));
+    }
+
+    @Override
+    public void onCourseAdded(Course course) {
+        append(record(COURSE_ADDED, out -> {
+            out.writeUTF(course.getCode());
+            writeString(out, course.getTitle());
+            out.writeInt(course.getCredits());
+            writeString(out, course.getInstructor());
+            out.writeUTF(course.getSemester().name());
+            writeString(out, course.getDepartment());
+        }));
+    }
+
+    @Override
+    public void onCourseUpdated(Course oldCourse, Course newCourse) {
+        append(record(COURSE_UPDATED, out -> {
+            out.writeUTF(newCourse.getCode());
+            writeString(out, newCourse.getInstructor());
+        }));
+    }
+
+    @Override
+    public void onEnrolled(Enrollment enrollment) {
+        append(record(ENROLLED, out -> {
+            out.writeUTF(enrollment.getStudent().getRegNo());
+            out.writeUTF(enrollment.getCourse().getCode());
+            out.writeLong(enrollment.getEnrollmentDate().toEpochDay());
+            out.writeUTF(enrollment.getGrade().name());
+        }));
+    }
+
+    @Override
+    public void onUnenrolled(Enrollment enrollment) {
+        append(record(UNENROLLED, out -> {
+            out.writeUTF(enrollment.getStudent().getRegNo());
+            out.writeUTF(enrollment.getCourse().getCode());
+        }));
+    }
+
+    @Override
+    public void onGradeChanged(Enrollment enrollment, Grade oldGrade) {
+        append(record(GRADE_CHANGED, out -> {
+            out.writeUTF(enrollment.getStudent().getRegNo());
+            out.writeUTF(enrollment.getCourse().getCode());
+            out.writeUTF(enrollment.getGrade().name());
+        }));
+    }
+
+    /**
+     * Writes the fields of one record.
+     */
+    private interface RecordBody {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Private helper that encodes a record with its length and checksum in front.
+     */
+    private static byte[] record(byte type, RecordBody body) {
+        try {
+            ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream(64);
+            DataOutputStream payload = new DataOutputStream(payloadBytes);
+            payload.writeByte(type);
+            body.write(payload);
+            byte[] bytes = payloadBytes.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+            ByteBuffer frame = ByteBuffer.allocate(8 + bytes.length);
+            frame.putInt(bytes.length).putInt((int) crc.getValue()).put(bytes);
+            return frame.array();
+        } catch (IOException e) {
+            // Writing to a byte array cannot fail.
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Private helper that appends one framed record without waiting for the
+     * disk; onChangesComplete does the waiting. In PER_OP mode the record is
+     * written to the file here and forced there; otherwise it is queued for
+     * the writer thread. Listener methods cannot throw IOException, so
+     * failures are rethrown unchecked.
+     */
+    private void append(byte[] frame) {
+        try {
+            synchronized (lock) {
+                checkFailure();
+                if (closed) {
+                    throw new IOException("Write-ahead log is closed");
+                }
+                if (durability == Durability.PER_OP) {
+                    ByteBuffer buffer = ByteBuffer.wrap(frame);
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                } else {
+                    pending.write(frame);
+                    lock.notifyAll();
+                }
+                unsynced.get()[0] = ++appendedSeq;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write to the write-ahead log: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Private helper that waits, holding lock, until the given record is on disk.
+     */
+    private void awaitDurable(long seq) throws IOException {
+        while (durableSeq < seq) {
+            checkFailure();
+            try {
+                lock.wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for the write-ahead log", e);
+            }
+        }
+        checkFailure();
+    }
+
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw new IOException("Write-ahead log failed earlier", failure);
+        }
+    }
+
+    /**
+     * The writer thread: takes everything appended so far, writes it with one
+     * write and one fsync, then wakes the callers waiting for it.
+     */
+    private void runWriter() {
+        while (true) {
+            byte[] batch;
+            long seq;
+            synchronized (lock) {
+                while (pending.size() == 0 && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pending.size() == 0) {
+                    return;
+                }
+                batch = pending.toByteArray();
+                pending = new ByteArrayOutputStream(Math.max(32, batch.length));
+                seq = appendedSeq;
+            }
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(batch);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                synchronized (lock) {
+                    failure = e;
+                    lock.notifyAll();
+                }
+                return;
+            }
+            synchronized (lock) {
+                durableSeq = seq;
+                lock.notifyAll();
+            }
+            if (durability == Durability.ASYNC) {
+                // Let more records gather before the next fsync; nobody is waiting for them.
+                try {
+                    Thread.sleep(ASYNC_FLUSH_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Private helper that applies one replayed record to the services.
+     */
+    private static void apply(byte[] payload, StudentService studentService, CourseService courseService,
+                              EnrollmentService enrollmentService) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = in.readByte();
+        try {
+            switch (type) {
+                case STUDENT_ADDED: {
+                    Student student = new Student(in.readUTF(), in.readUTF(), in.readUTF(), LocalDate.ofEpochDay(in.readLong()));
+                    student.setStatus(Student.Status.valueOf(in.readUTF()));
+                    studentService.addStudents(List.of(student));
+                    break;
+                }
+                case STUDENT_UPDATED: {
+                    String regNo = in.readUTF();
+                    String email = in.readUTF();
+                    Student.Status status = Student.Status.valueOf(in.readUTF());
+                    Student student = studentService.findStudentByRegNo(regNo).orElse(null);
+                    if (student != null) {
+                        if (!email.equals(student.getEmail())) {
+                            studentService.updateStudentEmail(regNo, email);
+                        }
+                        if (status == Student.Status.DEACTIVATED && student.getStatus() != status) {
+                            studentService.deactivateStudent(regNo);
+                        }
+                    }
+                    break;
+                }
+                case COURSE_ADDED:
+                    courseService.addCourses(List.of(new Course.Builder()
+                            .setCode(in.readUTF())
+                            .setTitle(in.readUTF())
+                            .setCredits(in.readInt())
+                            .setInstructor(in.readUTF())
+                            .setSemester(Semester.valueOf(in.readUTF()))
+                            .setDepartment(in.readUTF())
+                            .build()));
+                    break;
+                case COURSE_UPDATED:
+                    courseService.updateCourseInstructor(in.readUTF(), in.readUTF());
+                    break;
+                case ENROLLED: {
+                    Enrollment enrollment = enrollmentService.prepareEnrollment(in.readUTF(), in.readUTF(),
+                            LocalDate.ofEpochDay(in.readLong()));
+                    enrollment.setGrade(Grade.valueOf(in.readUTF()));
+                    // A duplicate means the enrollment was already in the loaded state.
+                    enrollmentService.enrollAll(List.of(enrollment));
+                    break;
+                }
+                case UNENROLLED:
+                    enrollmentService.unenrollStudent(in.readUTF(), in.readUTF());
+                    break;
+                case GRADE_CHANGED:
+                    enrollmentService.recordGrade(in.readUTF(), in.readUTF(), Grade.valueOf(in.readUTF()));
+                    break;
+                default:
+                    throw new IOException("Unknown write-ahead log record type " + type);
+            }
+        } catch (IllegalArgumentException e) {
+            // The record refers to something that is not there any more; nothing to re-apply.
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeUTF(value == null ? "" : value);
+    }
+}
@@ -0,0 +1,115 @@
+package edu.ccrm.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Process-wide registry of operation metrics. Each service keeps its
+ * OperationMetrics in static fields, created here once per operation name,
+ * so every instance of a service reports into the same counters.
+ */
+public final class Metrics {
+    // Timing costs two clock reads per call (tens of nanoseconds); -Dccrm.metrics=false skips it.
+    static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("ccrm.metrics"));
+    private static final long START = System.nanoTime();
+    private static final Map<String, OperationMetrics> OPERATIONS = new ConcurrentHashMap<>();
+    private static volatile boolean jmxExported;
+
+    private Metrics() {
+    }
+
+    /**
+     * Returns the metrics for an operation, creating them on first use.
+     * @param service The service class name, for example "StudentService".
+     * @param operation The method name; overloads are told apart by a suffix such as "(regNo)".
+     * @return The shared metrics for that operation.
+     */
+    public static OperationMetrics operation(String service, String operation) {
+        OperationMetrics[] created = new OperationMetrics[1];
+        OperationMetrics metrics = OPERATIONS.computeIfAbsent(service + "." + operation, key -> {
+            created[0] = new OperationMetrics(service, operation);
+            return created[0];
+        });
+        if (created[0] != null && jmxExported) {
+            register(created[0]);
+        }
+        return metrics;
+    }
+
+    /**
+     * @return Every registered operation, sorted by service and operation name.
+     */
+    public static List<OperationMetrics> all() {
+        List<OperationMetrics> result = new ArrayList<>(OPERATIONS.values());
+        result.sort(Comparator.comparing(OperationMetrics::getService).thenComparing(OperationMetrics::getOperation));
+        return result;
+    }
+
+    /**
+     * Registers every operation, now and in future, with the platform MBean
+     * server, so they can be read with JConsole or any other JMX client.
+     * Calling it again has no effect.
+     */
+    public static synchronized void exportToJmx() {
+        if (jmxExported) {
+            return;
+        }
+        jmxExported = true;
+        for (OperationMetrics metrics : OPERATIONS.values()) {
+            register(metrics);
+        }
+    }
+
+    /**
+     * Returns a table of every operation that has been called at least once:
+     * calls, errors, throughput and latency percentiles in microseconds.
+     * @return The formatted table.
+     */
+    public static String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-44s %12s %8s %10s %10s %10s %10s %10s%n",
+                "Operation", "Calls", "Errors", "Calls/s", "p50 us", "p99 us", "p99.9 us", "max us"));
+        int shown = 0;
+        for (OperationMetrics m : all()) {
+            if (m.getCount() == 0) {
+                continue;
+            }
+            shown++;
+            sb.append(String.format("%-44s %,12d %,8d %,10.1f %,10.1f %,10.1f %,10.1f %,10.1f%n",
+                    m.getService() + "." + m.getOperation(), m.getCount(), m.getErrors(), m.getThroughput(),
+                    m.getP50Micros(), m.getP99Micros(), m.getP999Micros(), m.getMaxMicros()));
+        }
+        if (shown == 0) {
+            sb.append("No operations recorded yet.").append(System.lineSeparator());
+        }
+        if (!ENABLED) {
+            sb.append("Timing is off (-Dccrm.metrics=false): calls and errors are counted, latencies are not.")
+                    .append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+
+    static double getUptimeSeconds() {
+        return Math.max(1e-9, (System.nanoTime() - START) / 1e9);
+    }
+
+    private static synchronized void register(OperationMetrics metrics) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName("edu.ccrm:type=Operation,service=" + metrics.getService()
+                    + ",name=" + metrics.getOperation());
+            if (!server.isRegistered(name)) {
+                server.registerMBean(metrics, name);
+            }
+        } catch (JMException e) {
+            System.out.println("Could not export metrics for " + metrics.getOperation() + " over JMX: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package edu.ccrm.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call count, error count and latency histogram for one service operation.
+ * Instrumented methods wrap their body in time:
+ * <pre>
+ *   return FIND_BY_REG_NO.time(() -> {
+ *       ... the work ...
+ *   });
+ * </pre>
+ * which is the same as calling begin, then failed if the work throws, then
+ * end. Failed calls are timed like any other and also counted as errors.
+ * Running with -Dccrm.metrics=false switches the timing off: calls and
+ * errors are still counted, but no latencies are recorded.
+ */
+public final class OperationMetrics implements OperationMetricsMXBean {
+    private final String service;
+    private final String operation;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    // Counted apart from the histogram, so calls are still counted with timing off.
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    OperationMetrics(String service, String operation) {
+        this.service = service;
+        this.operation = operation;
+    }
+
+    /**
+     * The body of a timed call that returns a value. It may throw one checked exception type.
+     */
+    @FunctionalInterface
+    public interface Work<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    /**
+     * The body of a timed call that returns nothing.
+     */
+    @FunctionalInterface
+    public interface Task<E extends Exception> {
+        void run() throws E;
+    }
+
+    /**
+     * Runs and times one call, counting it as an error if it throws.
+     * @return What the work returned.
+     */
+    public <T, E extends Exception> T time(Work<T, E> work) throws E {
+        long start = begin();
+        try {
+            return work.call();
+        } catch (Exception e) {
+            failed();
+            throw e;
+        } finally {
+            end(start);
+        }
+    }
+
+    /**
+     * Runs and times one call that returns nothing, counting it as an error if it throws.
+     */
+    public <E extends Exception> void time(Task<E> task) throws E {
+        long start = begin();
+        try {
+            task.run();
+        } catch (Exception e) {
+            failed();
+            throw e;
+        } finally {
+            end(start);
+        }
+    }
+
+    /**
+     * @return The start time to pass to end.
+     */
+    public long begin() {
+        return Metrics.ENABLED ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records a finished call.
+     * @param start The value begin returned.
+     */
+    public void end(long start) {
+        calls.increment();
+        if (Metrics.ENABLED) {
+            latency.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Counts a call that ended with an exception; end is still called for it.
+     */
+    public void failed() {
+        errors.increment();
+    }
+
+    @Override
+    public String getService() {
+        return service;
+    }
+
+    @Override
+    public String getOperation() {
+        return operation;
+    }
+
+    @Override
+    public long getCount() {
+        return calls.sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public double getThroughput() {
+        return getCount() / Metrics.getUptimeSeconds();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        return latency.getMean() / 1_000.0;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return latency.getPercentile(0.50) / 1_000.0;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return latency.getPercentile(0.99) / 1_000.0;
+    }
+
+    @Override
+    public double getP999Micros() {
+        return latency.getPercentile(0.999) / 1_000.0;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return latency.getMax() / 1_000.0;
+    }
+}
@@ -0,0 +1,32 @@
+package edu.ccrm.metrics;
+
+/**
+ * The JMX view of one instrumented operation, registered as
+ * edu.ccrm:type=Operation,service=...,name=... (see Metrics.exportToJmx).
+ * Times are in microseconds.
+ */
+public interface OperationMetricsMXBean {
+
+    String getService();
+
+    String getOperation();
+
+    long getCount();
+
+    long getErrors();
+
+    /**
+     * @return Calls per second, averaged since the application started.
+     */
+    double getThroughput();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP99Micros();
+
+    double getP999Micros();
+
+    double getMaxMicros();
+}
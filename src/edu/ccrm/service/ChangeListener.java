@@ -0,0 +1,17 @@
+package edu.ccrm.service;
+
+/**
+ * What StudentListener, CourseListener and EnrollmentListener have in common:
+ * being told when a service call that made changes is about to return.
+ */
+public interface ChangeListener {
+    /**
+     * Called once a call that made any changes is about to return, after the
+     * service has released its locks. A listener that has to wait for
+     * something, such as a log record reaching the disk, should wait here
+     * rather than in the change events themselves, where it would hold up
+     * every other change behind the service's lock. If it throws, the call fails.
+     */
+    default void onChangesComplete() {
+    }
+}
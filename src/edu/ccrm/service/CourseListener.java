@@ -0,0 +1,25 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+
+/**
+ * Receives change events from CourseService, in the same way EnrollmentListener
+ * does for enrollments. Every method has an empty default.
+ */
+public interface CourseListener extends ChangeListener {
+
+    /**
+     * Called after a course has been added.
+     * @param course The new course.
+     */
+    default void onCourseAdded(Course course) {
+    }
+
+    /**
+     * Called after a course has been replaced by an updated copy.
+     * @param oldCourse The course as it was.
+     * @param newCourse The course that replaced it.
+     */
+    default void onCourseUpdated(Course oldCourse, Course newCourse) {
+    }
+}
@@ -4,18 +4,74 @@ package edu.ccrm.service;
 import edu.ccrm.domain.Course;
 import edu.ccrm.domain.Enrollment;
 import edu.ccrm.domain.Semester;
+import edu.ccrm.metrics.Metrics;
+import edu.ccrm.metrics.OperationMetrics;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Manages all business logic related to courses, acting as an
  * in-memory repository for course data.
+ *
+ * Courses are kept in insertion order and indexed by case-folded code,
+ * instructor and department, and partitioned by semester, so lookups
+ * and filters do not scan every course.
+ *
+ * This class is safe to call from several threads. Lookups by code read a
+ * concurrent map without locking, since they sit on the enrollment hot path;
+ * every other method synchronizes on the service.
+ *
+ * It also keeps a live enrollment count per course. EnrollmentService
+ * registers it as a listener, so questions like "which courses have fewer
+ * than N students" are answered from the counters without reading any
+ * enrollments.
  */
-public class CourseService {
-    private List<Course> courses = new ArrayList<>();
+public class CourseService implements EnrollmentListener {
+    private static final OperationMetrics ADD_COURSE = Metrics.operation("CourseService", "addCourse");
+    private static final OperationMetrics ADD_COURSES = Metrics.operation("CourseService", "addCourses");
+    private static final OperationMetrics LIST_COURSES = Metrics.operation("CourseService", "listCourses");
+    private static final OperationMetrics LIST_COURSES_PAGE = Metrics.operation("CourseService", "listCourses(page)");
+    private static final OperationMetrics FIND_BY_CODE = Metrics.operation("CourseService", "findCourseByCode");
+    private static final OperationMetrics UPDATE_INSTRUCTOR = Metrics.operation("CourseService", "updateCourseInstructor");
+    private static final OperationMetrics REASSIGN_INSTRUCTOR = Metrics.operation("CourseService", "reassignInstructor");
+    private static final OperationMetrics FILTER_BY_INSTRUCTOR = Metrics.operation("CourseService", "filterCoursesByInstructor");
+    private static final OperationMetrics FILTER_BY_DEPARTMENT = Metrics.operation("CourseService", "filterCoursesByDepartment");
+    private static final OperationMetrics FILTER_BY_SEMESTER = Metrics.operation("CourseService", "filterCoursesBySemester");
+    private static final OperationMetrics FIND_WITH_NO_ENROLLMENTS_SCAN = Metrics.operation("CourseService", "findCoursesWithNoEnrollments(enrollments)");
+    private static final OperationMetrics FIND_WITH_NO_ENROLLMENTS = Metrics.operation("CourseService", "findCoursesWithNoEnrollments");
+    private static final OperationMetrics FIND_WITH_FEWER_ENROLLMENTS = Metrics.operation("CourseService", "findCoursesWithFewerEnrollmentsThan");
+    private static final OperationMetrics ENROLLMENT_COUNT = Metrics.operation("CourseService", "getEnrollmentCount");
+
+    private SnapshotList<Course> courses = new SnapshotList<>();
+    private Map<String, Integer> slotsByCode = new HashMap<>();
+    private Map<String, Course> coursesByCode = new ConcurrentHashMap<>();
+    // Updated from enrollment events, which arrive on many threads without this service's lock.
+    private Map<String, AtomicInteger> enrollmentCounts = new ConcurrentHashMap<>();
+    private Map<String, Map<String, Course>> coursesByInstructor = new HashMap<>();
+    private Map<String, Map<String, Course>> coursesByDepartment = new HashMap<>();
+    private Map<Semester, Map<String, Course>> coursesBySemester = new EnumMap<>(Semester.class);
+    private List<CourseListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Registers a listener to be told about every added or updated course.
+     * @param listener The listener to add.
+     */
+    public void addListener(CourseListener listener) {
+        listeners.add(listener);
+    }
 
     /**
      * Adds a new course to the system.
@@ -23,18 +79,75 @@ public class CourseService {
      * @throws IllegalArgumentException if a course with the same code already exists.
      */
     public void addCourse(Course course) {
-        if (findCourseByCode(course.getCode()).isPresent()) {
-            throw new IllegalArgumentException("Course with this code already exists.");
-        }
-        courses.add(course);
+        ADD_COURSE.time(() -> {
+            synchronized (this) {
+                if (findCourseByCode(course.getCode()).isPresent()) {
+                    throw new IllegalArgumentException("Course with this code already exists.");
+                }
+                insert(course);
+            }
+            completeChanges();
+        });
+    }
+
+    /**
+     * Adds a batch of already-built courses in a single pass.
+     * Courses whose code is already in use are skipped.
+     * @param batch The courses to add, in the order they should be listed.
+     * @return The number of courses actually added.
+     */
+    public int addCourses(Collection<Course> batch) {
+        return ADD_COURSES.time(() -> {
+            int added = 0;
+            synchronized (this) {
+                for (Course course : batch) {
+                    if (!slotsByCode.containsKey(fold(course.getCode()))) {
+                        insert(course);
+                        added++;
+                    }
+                }
+            }
+            completeChanges();
+            return added;
+        });
     }
 
     /**
-     * Retrieves a list of all courses in the system.
-     * @return A new ArrayList containing all courses to prevent modification of the original list.
+     * Retrieves a list of all courses in the system, in the order they were added.
+     * Nothing is copied: the list is an unmodifiable point-in-time view that
+     * later additions and updates do not change.
+     * @return An unmodifiable list of all courses.
      */
     public List<Course> listCourses() {
-        return new ArrayList<>(courses);
+        return LIST_COURSES.time(() -> {
+            synchronized (this) {
+                return courses.snapshot();
+            }
+        });
+    }
+
+    /**
+     * Retrieves one page of courses, in the order they were added, copying only that page.
+     * @param cursor Page.START for the first page, otherwise the previous page's next cursor.
+     * @param limit The maximum number of courses on the page.
+     * @return The page and the cursor of the page after it.
+     * @throws IllegalArgumentException if the cursor is negative or the limit is not positive.
+     */
+    public Page<Course> listCourses(int cursor, int limit) {
+        return LIST_COURSES_PAGE.time(() -> {
+            synchronized (this) {
+                return Page.of(courses.snapshot(), cursor, limit);
+            }
+        });
+    }
+
+    /**
+     * Returns every course as a lazy stream, fetched a page at a time while it is consumed.
+     * Courses added while the stream is open are included if it has not yet passed their position.
+     * @param pageSize The number of courses fetched at once.
+     */
+    public Stream<Course> streamCourses(int pageSize) {
+        return Page.stream(this::listCourses, pageSize);
     }
 
     /**
@@ -43,35 +156,55 @@ public class CourseService {
      * @return An Optional containing the course if found, or an empty Optional otherwise.
      */
     public Optional<Course> findCourseByCode(String code) {
-        return courses.stream()
-                .filter(c -> c.getCode().equalsIgnoreCase(code))
-                .findFirst();
+        return FIND_BY_CODE.time(() -> Optional.ofNullable(coursesByCode.get(fold(code))));
     }
 
     /**
      * Updates the instructor for a given course.
-     * This implementation creates a new Course object to maintain immutability.
+     * This implementation creates a new Course object to maintain immutability,
+     * and stores it in the same position as the course it replaces.
      * @param code The code of the course to update.
      * @param newInstructor The name of the new instructor.
      * @throws IllegalArgumentException if the course is not found.
      */
     public void updateCourseInstructor(String code, String newInstructor) {
-        Optional<Course> courseOpt = findCourseByCode(code);
-        if (courseOpt.isPresent()) {
-            Course oldCourse = courseOpt.get();
-            Course updatedCourse = new Course.Builder()
-                .setCode(oldCourse.getCode())
-                .setTitle(oldCourse.getTitle())
-                .setCredits(oldCourse.getCredits())
-                .setInstructor(newInstructor)
-                .setSemester(oldCourse.getSemester())
-                .setDepartment(oldCourse.getDepartment())
-                .build();
-            courses.remove(oldCourse);
-            courses.add(updatedCourse);
-        } else {
-            throw new IllegalArgumentException("Course not found");
-        }
+        UPDATE_INSTRUCTOR.time(() -> {
+            synchronized (this) {
+                Integer slot = slotsByCode.get(fold(code));
+                if (slot != null) {
+                    replaceInstructor(slot, newInstructor);
+                } else {
+                    throw new IllegalArgumentException("Course not found");
+                }
+            }
+            completeChanges();
+        });
+    }
+
+    /**
+     * Hands every course taught by one instructor to another, for example when
+     * faculty change at a term boundary. Runs in one pass over the outgoing
+     * instructor's courses, under a single lock, so no reader sees the change
+     * half done. Each course is replaced in its own slot exactly as by
+     * updateCourseInstructor, and listeners are told about each one.
+     * @param fromInstructor The instructor giving up their courses (case-insensitive).
+     * @param toInstructor The instructor taking them over.
+     * @return The updated courses, empty if fromInstructor teaches none.
+     */
+    public List<Course> reassignInstructor(String fromInstructor, String toInstructor) {
+        return REASSIGN_INSTRUCTOR.time(() -> {
+            List<Course> updated;
+            synchronized (this) {
+                // Copied, because each replacement moves its course out of this bucket.
+                List<Course> taught = lookup(coursesByInstructor, fold(fromInstructor));
+                updated = new ArrayList<>(taught.size());
+                for (Course course : taught) {
+                    updated.add(replaceInstructor(slotsByCode.get(fold(course.getCode())), toInstructor));
+                }
+            }
+            completeChanges();
+            return updated;
+        });
     }
 
     /**
@@ -80,9 +213,11 @@ public class CourseService {
      * @return A list of courses matching the instructor's name (case-insensitive).
      */
     public List<Course> filterCoursesByInstructor(String instructor) {
-        return courses.stream()
-                .filter(c -> c.getInstructor().equalsIgnoreCase(instructor))
-                .collect(Collectors.toList());
+        return FILTER_BY_INSTRUCTOR.time(() -> {
+            synchronized (this) {
+                return lookup(coursesByInstructor, fold(instructor));
+            }
+        });
     }
 
     /**
@@ -91,9 +226,11 @@ public class CourseService {
      * @return A list of courses in the specified department (case-insensitive).
      */
     public List<Course> filterCoursesByDepartment(String department) {
-        return courses.stream()
-                .filter(c -> c.getDepartment().equalsIgnoreCase(department))
-                .collect(Collectors.toList());
+        return FILTER_BY_DEPARTMENT.time(() -> {
+            synchronized (this) {
+                return lookup(coursesByDepartment, fold(department));
+            }
+        });
     }
 
     /**
@@ -102,25 +239,197 @@ public class CourseService {
      * @return A list of courses offered in that semester.
      */
     public List<Course> filterCoursesBySemester(Semester semester) {
-        return courses.stream()
-                .filter(c -> c.getSemester() == semester)
-                .collect(Collectors.toList());
+        return FILTER_BY_SEMESTER.time(() -> {
+            synchronized (this) {
+                return lookup(coursesBySemester, semester);
+            }
+        });
     }
 
     /**
      * Finds courses that have no students enrolled in them.
      * @param allEnrollments A list of all enrollment records from EnrollmentService.
      * @return A list of courses with zero enrollments.
+     * @deprecated Use findCoursesWithNoEnrollments(), which reads the live
+     *             counters instead of the whole enrollment list.
      */
+    @Deprecated
     public List<Course> findCoursesWithNoEnrollments(List<Enrollment> allEnrollments) {
-        // Create a set of course codes that have at least one enrollment
-        Set<String> enrolledCourseCodes = allEnrollments.stream()
-                .map(enrollment -> enrollment.getCourse().getCode())
-                .collect(Collectors.toSet());
+        return FIND_WITH_NO_ENROLLMENTS_SCAN.time(() -> {
+            synchronized (this) {
+                // Create a set of course codes that have at least one enrollment
+                Set<String> enrolledCourseCodes = allEnrollments.stream()
+                        .map(enrollment -> enrollment.getCourse().getCode())
+                        .collect(Collectors.toSet());
+
+                // Filter the main course list to find courses whose codes are NOT in the set
+                return courses.stream()
+                        .filter(course -> !enrolledCourseCodes.contains(course.getCode()))
+                        .collect(Collectors.toList());
+            }
+        });
+    }
 
-        // Filter the main course list to find courses whose codes are NOT in the set
-        return courses.stream()
-                .filter(course -> !enrolledCourseCodes.contains(course.getCode()))
-                .collect(Collectors.toList());
+    /**
+     * Finds all courses that currently have no students enrolled, from the live counters.
+     * @return A list of courses with zero enrollments, in the order they were added.
+     */
+    public List<Course> findCoursesWithNoEnrollments() {
+        return FIND_WITH_NO_ENROLLMENTS.time(() -> fewerEnrollmentsThan(1));
+    }
+
+    /**
+     * Finds all courses with fewer than the given number of students enrolled, from the live counters.
+     * @param limit The enrollment count a course must stay below to be included.
+     * @return The matching courses, in the order they were added.
+     */
+    public List<Course> findCoursesWithFewerEnrollmentsThan(int limit) {
+        return FIND_WITH_FEWER_ENROLLMENTS.time(() -> fewerEnrollmentsThan(limit));
+    }
+
+    /**
+     * Returns the number of students currently enrolled in a course.
+     * @param code The course code (case-insensitive).
+     * @return The count, or 0 if there is no such course.
+     */
+    public int getEnrollmentCount(String code) {
+        return ENROLLMENT_COUNT.time(() -> enrollmentCount(code));
+    }
+
+    @Override
+    public void onEnrolled(Enrollment enrollment) {
+        counterFor(enrollment).incrementAndGet();
+    }
+
+    @Override
+    public void onUnenrolled(Enrollment enrollment) {
+        counterFor(enrollment).decrementAndGet();
+    }
+
+    /**
+     * Reads a course's live enrollment count without recording a metric, for
+     * ReportService, which reads every course's count at once.
+     */
+    int enrollmentCount(String code) {
+        AtomicInteger count = enrollmentCounts.get(fold(code));
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * Private helper that lists the courses whose counter is below the limit.
+     */
+    private synchronized List<Course> fewerEnrollmentsThan(int limit) {
+        List<Course> result = new ArrayList<>();
+        for (Course course : courses) {
+            AtomicInteger count = enrollmentCounts.get(fold(course.getCode()));
+            if (count == null || count.get() < limit) {
+                result.add(course);
+            }
+        }
+        return result;
+    }
+
+    private AtomicInteger counterFor(Enrollment enrollment) {
+        return enrollmentCounts.computeIfAbsent(fold(enrollment.getCourse().getCode()), k -> new AtomicInteger());
+    }
+
+    /**
+     * Private helper that replaces the course in a slot with a copy taught by
+     * another instructor and tells the listeners. Only the instructor index
+     * moves the course; in its department and semester buckets it is replaced
+     * in place, so those listings keep their order. Courses are
+     * immutable, so anything holding the old object (such as an Enrollment
+     * view) keeps seeing the old instructor; EnrollmentService listens for
+     * the update and repoints its enrollments to the new object.
+     * @return The new course.
+     */
+    private Course replaceInstructor(int slot, String newInstructor) {
+        Course oldCourse = courses.get(slot);
+        Course updatedCourse = new Course.Builder()
+            .setCode(oldCourse.getCode())
+            .setTitle(oldCourse.getTitle())
+            .setCredits(oldCourse.getCredits())
+            .setInstructor(newInstructor)
+            .setSemester(oldCourse.getSemester())
+            .setDepartment(oldCourse.getDepartment())
+            .build();
+        String key = fold(oldCourse.getCode());
+        courses.set(slot, updatedCourse);
+        coursesByCode.put(key, updatedCourse);
+        if (!fold(oldCourse.getInstructor()).equals(fold(newInstructor))) {
+            removeFromIndex(coursesByInstructor, fold(oldCourse.getInstructor()), key);
+        }
+        // Putting an existing key keeps its position in a LinkedHashMap.
+        coursesByInstructor.computeIfAbsent(fold(newInstructor), k -> new LinkedHashMap<>()).put(key, updatedCourse);
+        coursesByDepartment.get(fold(updatedCourse.getDepartment())).put(key, updatedCourse);
+        coursesBySemester.get(updatedCourse.getSemester()).put(key, updatedCourse);
+        for (CourseListener listener : listeners) {
+            listener.onCourseUpdated(oldCourse, updatedCourse);
+        }
+        return updatedCourse;
+    }
+
+    /**
+     * Private helper to append a new course, index it and tell the listeners.
+     */
+    private void insert(Course course) {
+        slotsByCode.put(fold(course.getCode()), courses.size());
+        courses.add(course);
+        coursesByCode.put(fold(course.getCode()), course);
+        enrollmentCounts.putIfAbsent(fold(course.getCode()), new AtomicInteger());
+        addToIndexes(course);
+        for (CourseListener listener : listeners) {
+            listener.onCourseAdded(course);
+        }
+    }
+
+    /**
+     * Private helper to tell the listeners a call's changes are made. Called
+     * outside the lock, so a listener waiting for the disk holds up only this call.
+     */
+    private void completeChanges() {
+        for (CourseListener listener : listeners) {
+            listener.onChangesComplete();
+        }
+    }
+
+    /**
+     * Private helper to add a course to the instructor, department and semester indexes.
+     */
+    private void addToIndexes(Course course) {
+        String key = fold(course.getCode());
+        coursesByInstructor.computeIfAbsent(fold(course.getInstructor()), k -> new LinkedHashMap<>()).put(key, course);
+        coursesByDepartment.computeIfAbsent(fold(course.getDepartment()), k -> new LinkedHashMap<>()).put(key, course);
+        coursesBySemester.computeIfAbsent(course.getSemester(), k -> new LinkedHashMap<>()).put(key, course);
+    }
+
+    /**
+     * Private helper to remove a course from one index bucket, dropping the bucket once empty.
+     */
+    private static <K> void removeFromIndex(Map<K, Map<String, Course>> index, K indexKey, String courseKey) {
+        Map<String, Course> bucket = index.get(indexKey);
+        if (bucket != null) {
+            bucket.remove(courseKey);
+            if (bucket.isEmpty()) {
+                index.remove(indexKey);
+            }
+        }
+    }
+
+    /**
+     * Private helper to copy the courses in one index bucket into a new list.
+     */
+    private static <K> List<Course> lookup(Map<K, Map<String, Course>> index, K indexKey) {
+        Map<String, Course> bucket = index.get(indexKey);
+        return bucket == null ? new ArrayList<>() : new ArrayList<>(bucket.values());
+    }
+
+    /**
+     * Case-folds a code, instructor or department name for use as an index key.
+     * Course codes are matched case-insensitively everywhere, so ReportService
+     * and the enrollment store key courses with this too.
+     */
+    static String fold(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
     }
-}
+}
\ No newline at end of file
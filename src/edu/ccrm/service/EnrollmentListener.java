@@ -0,0 +1,35 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+
+/**
+ * Receives change events from EnrollmentService, so other services can keep
+ * derived data (GPA totals, counters) up to date without rescanning enrollments.
+ * Every method has an empty default, so listeners only override what they use.
+ */
+public interface EnrollmentListener extends ChangeListener {
+
+    /**
+     * Called after an enrollment has been recorded. The enrollment may already
+     * carry a grade, for example when it was restored from an export.
+     * @param enrollment The new enrollment.
+     */
+    default void onEnrolled(Enrollment enrollment) {
+    }
+
+    /**
+     * Called after an enrollment has been removed.
+     * @param enrollment The removed enrollment, with the grade it had.
+     */
+    default void onUnenrolled(Enrollment enrollment) {
+    }
+
+    /**
+     * Called after the grade of an enrollment has been changed.
+     * @param enrollment The enrollment, already holding the new grade.
+     * @param oldGrade The grade it had before.
+     */
+    default void onGradeChanged(Enrollment enrollment, Grade oldGrade) {
+    }
+}
@@ -3,16 +3,58 @@ package edu.ccrm.service;
 
 import edu.ccrm.domain.*;
 import edu.ccrm.exceptions.*;
-import java.util.ArrayList;
+import edu.ccrm.metrics.Metrics;
+import edu.ccrm.metrics.OperationMetrics;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Handles all business logic for student enrollments. This includes enrolling,
  * unenrolling, and grading. It interacts with StudentService and CourseService
  * to validate data.
+ *
+ * Enrollments are kept in an EnrollmentStore: parallel primitive arrays of
+ * student id, course id, grade and date, with each student's and each
+ * course's enrollments chained together in the order they were made. The
+ * duplicate check only walks the student's own few enrollments, the
+ * credit-limit check reads a running per-semester total, and the Enrollment
+ * objects handed to callers and listeners are views built on demand.
+ * Readers that need every enrollment take a snapshot, an immutable view of
+ * one point in time that costs no copying and no locks to read.
+ *
+ * This class is safe to call from several threads. Every change to one
+ * student's enrollments runs under that student's lock, taken from a fixed
+ * set of striped locks, so the duplicate check, the credit-limit check and
+ * the insert happen atomically for that student while enrollments for other
+ * students proceed in parallel; the store itself is locked only for the
+ * moment each change is written, and its reads take no lock at all.
+ * Listeners are notified under the student's lock, so they see each
+ * student's events in order, and told through onChangesComplete once it has
+ * been released.
  */
-public class EnrollmentService {
-    private List<Enrollment> enrollments = new ArrayList<>();
+public class EnrollmentService implements CourseListener {
+    private static final OperationMetrics ENROLL = Metrics.operation("EnrollmentService", "enrollStudent");
+    private static final OperationMetrics PREPARE = Metrics.operation("EnrollmentService", "prepareEnrollment");
+    private static final OperationMetrics ENROLL_ALL = Metrics.operation("EnrollmentService", "enrollAll");
+    private static final OperationMetrics RESTORE_ALL = Metrics.operation("EnrollmentService", "restoreAll");
+    private static final OperationMetrics UNENROLL = Metrics.operation("EnrollmentService", "unenrollStudent");
+    private static final OperationMetrics RECORD_GRADE = Metrics.operation("EnrollmentService", "recordGrade");
+    private static final OperationMetrics RECORD_GRADES = Metrics.operation("EnrollmentService", "recordGrades");
+    private static final OperationMetrics FOR_STUDENT = Metrics.operation("EnrollmentService", "getEnrollmentsForStudent");
+    private static final OperationMetrics FOR_COURSE = Metrics.operation("EnrollmentService", "getEnrollmentsForCourse");
+    private static final OperationMetrics GET_ALL = Metrics.operation("EnrollmentService", "getAllEnrollments");
+    private static final OperationMetrics SNAPSHOT = Metrics.operation("EnrollmentService", "snapshot");
+
+    // Number of striped student locks; a power of two so a mask picks the stripe.
+    private static final int LOCK_STRIPES = 1024;
+
+    private final EnrollmentStore store = new EnrollmentStore();
+    private List<EnrollmentListener> listeners = new CopyOnWriteArrayList<>();
+    private final Object[] studentLocks = new Object[LOCK_STRIPES];
     private StudentService studentService;
     private CourseService courseService;
     private static final int MAX_CREDITS_PER_SEMESTER = 18;
@@ -20,6 +62,31 @@ public class EnrollmentService {
     public EnrollmentService(StudentService studentService, CourseService courseService) {
         this.studentService = studentService;
         this.courseService = courseService;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            studentLocks[i] = new Object();
+        }
+        // Keep the course service's per-course enrollment counters in step,
+        // and this service's enrollments pointing at the current version of each course.
+        addListener(courseService);
+        courseService.addListener(this);
+    }
+
+    /**
+     * Registers a listener to be told about every enroll, unenroll and grade change.
+     * @param listener The listener to add.
+     */
+    public void addListener(EnrollmentListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Repoints every enrollment in an updated course at the new Course object,
+     * so views built from now on show the update. Enrollments reach their
+     * course through one shared entry in the store, so this is a single write.
+     */
+    @Override
+    public void onCourseUpdated(Course oldCourse, Course newCourse) {
+        store.replaceCourse(newCourse);
     }
 
     /**
@@ -30,25 +97,93 @@ public class EnrollmentService {
      * @throws DuplicateEnrollmentException if the student is already enrolled in the course.
      */
     public void enrollStudent(String regNo, String courseCode) throws MaxCreditLimitExceededException, DuplicateEnrollmentException {
-        // Find the student and course, otherwise throw an exception
-        Student student = studentService.findStudentByRegNo(regNo)
-                .orElseThrow(() -> new IllegalArgumentException("Student not found with registration number: " + regNo));
-        Course course = courseService.findCourseByCode(courseCode)
-                .orElseThrow(() -> new IllegalArgumentException("Course not found with code: " + courseCode));
+        // Timed by hand: ENROLL.time can only pass one checked exception type through.
+        long start = ENROLL.begin();
+        try {
+            // Create and record the new enrollment
+            addEnrollment(prepareEnrollment(regNo, courseCode));
+            completeChanges();
+        } catch (Exception e) {
+            ENROLL.failed();
+            throw e;
+        } finally {
+            ENROLL.end(start);
+        }
+    }
+
+    /**
+     * Looks up the student and course and builds an Enrollment for them without
+     * recording it. The result can be passed to enrollAll. This only reads the
+     * student and course indexes, so import workers can call it in parallel
+     * while no students or courses are being added.
+     * @param regNo The registration number of the student.
+     * @param courseCode The code of the course.
+     * @return A new, unrecorded Enrollment.
+     * @throws IllegalArgumentException if the student or course does not exist.
+     */
+    public Enrollment prepareEnrollment(String regNo, String courseCode) {
+        return prepareEnrollment(regNo, courseCode, LocalDate.now());
+    }
 
-        // Check for duplicate enrollment
-        if (isEnrolled(student, course))
-            throw new DuplicateEnrollmentException("Student already enrolled in this course.");
+    /**
+     * Same as prepareEnrollment(regNo, courseCode), but keeps an existing
+     * enrollment date, for example one read back from an export.
+     * @param enrollmentDate The date the student originally enrolled.
+     */
+    public Enrollment prepareEnrollment(String regNo, String courseCode, LocalDate enrollmentDate) {
+        return PREPARE.time(() -> {
+            // Find the student and course, otherwise throw an exception
+            Student student = studentService.findStudentByRegNo(regNo)
+                    .orElseThrow(() -> new IllegalArgumentException("Student not found with registration number: " + regNo));
+            Course course = courseService.findCourseByCode(courseCode)
+                    .orElseThrow(() -> new IllegalArgumentException("Course not found with code: " + courseCode));
+            return new Enrollment(student, course, enrollmentDate);
+        });
+    }
 
-        // Check if adding this course exceeds the maximum credit limit for the semester
-        int currentCredits = getCurrentCredits(student, course.getSemester());
-        if ((currentCredits + course.getCredits()) > MAX_CREDITS_PER_SEMESTER)
-            throw new MaxCreditLimitExceededException("Max credit limit exceeded for the semester.");
+    /**
+     * Applies a batch of enrollments built by prepareEnrollment, in a single pass. Each one still goes through the duplicate and
+     * credit-limit checks, in order; the ones that fail are returned rather than
+     * stopping the batch.
+     * @param batch The enrollments to apply.
+     * @return The rejected enrollments, mapped to the reason they were rejected.
+     */
+    public Map<Enrollment, Exception> enrollAll(Collection<Enrollment> batch) {
+        return ENROLL_ALL.time(() -> {
+            Map<Enrollment, Exception> rejected = new LinkedHashMap<>();
+            for (Enrollment enrollment : batch) {
+                try {
+                    addEnrollment(enrollment);
+                } catch (MaxCreditLimitExceededException | DuplicateEnrollmentException e) {
+                    rejected.put(enrollment, e);
+                }
+            }
+            completeChanges();
+            return rejected;
+        });
+    }
 
-        // Create and record the new enrollment
-        Enrollment enrollment = new Enrollment(student, course);
-        enrollments.add(enrollment);
-        student.enrollCourse(courseCode);
+    /**
+     * Records enrollments read back from a snapshot of this service's own state,
+     * without the duplicate and credit-limit checks: they passed those checks
+     * when they were first made. Indexes, students' course lists and listeners
+     * are updated exactly as for a normal enrollment.
+     * @param batch The enrollments to record.
+     */
+    public void restoreAll(Collection<Enrollment> batch) {
+        RESTORE_ALL.time(() -> {
+            for (Enrollment enrollment : batch) {
+                synchronized (lockFor(enrollment.getStudent().getRegNo())) {
+                    store.add(enrollment.getStudent(), enrollment.getCourse(), enrollment.getGrade(),
+                            enrollment.getEnrollmentDate());
+                    enrollment.getStudent().enrollCourse(enrollment.getCourse().getCode());
+                    for (EnrollmentListener listener : listeners) {
+                        listener.onEnrolled(enrollment);
+                    }
+                }
+            }
+            completeChanges();
+        });
     }
 
     /**
@@ -57,10 +192,20 @@ public class EnrollmentService {
      * @param courseCode The code of the course.
      */
     public void unenrollStudent(String regNo, String courseCode) {
-        enrollments.removeIf(enrollment ->
-                enrollment.getStudent().getRegNo().equals(regNo) &&
-                enrollment.getCourse().getCode().equals(courseCode));
-        studentService.findStudentByRegNo(regNo).ifPresent(s -> s.unenrollCourse(courseCode));
+        UNENROLL.time(() -> {
+            synchronized (lockFor(regNo)) {
+                Enrollment enrollment = store.remove(regNo, courseCode);
+                if (enrollment != null) {
+                    for (EnrollmentListener listener : listeners) {
+                        listener.onUnenrolled(enrollment);
+                    }
+                }
+                // The stored code, since courseCode may differ from it in case.
+                String code = enrollment != null ? enrollment.getCourse().getCode() : courseCode;
+                studentService.findStudentByRegNo(regNo).ifPresent(s -> s.unenrollCourse(code));
+            }
+            completeChanges();
+        });
     }
 
     /**
@@ -71,69 +216,179 @@ public class EnrollmentService {
      * @throws IllegalArgumentException if the enrollment record cannot be found.
      */
     public void recordGrade(String regNo, String courseCode, Grade grade) {
-        enrollments.stream()
-            .filter(e -> e.getStudent().getRegNo().equals(regNo) && e.getCourse().getCode().equals(courseCode))
-            .findFirst()
-            .ifPresentOrElse(
-                e -> e.setGrade(grade),
-                () -> { throw new IllegalArgumentException("Enrollment record not found."); }
-            );
+        RECORD_GRADE.time(() -> {
+            if (!regrade(regNo, courseCode, grade)) {
+                throw new IllegalArgumentException("Enrollment record not found.");
+            }
+            completeChanges();
+        });
     }
 
     /**
-     * Retrieves all enrollment records for a specific student.
-     * @param regNo The student's registration number.
-     * @return A list of Enrollment objects.
+     * Applies a batch of grades in a single pass. Each one is looked up
+     * through the student's own enrollments, as recordGrade does; the ones
+     * that cannot be applied (unknown student, unknown course, or a student
+     * not enrolled in the course) are returned rather than stopping the batch.
+     * @param grades The grades to record.
+     * @return The position in the list of each rejected grade, mapped to the reason it was rejected.
      */
-    public List<Enrollment> getEnrollmentsForStudent(String regNo) {
-        List<Enrollment> result = new ArrayList<>();
-        for (Enrollment e : enrollments) {
-            if (e.getStudent().getRegNo().equals(regNo)) {
-                result.add(e);
+    public Map<Integer, Exception> recordGrades(List<GradeUpdate> grades) {
+        return RECORD_GRADES.time(() -> {
+            Map<Integer, Exception> rejected = new LinkedHashMap<>();
+            for (int i = 0; i < grades.size(); i++) {
+                GradeUpdate update = grades.get(i);
+                if (!regrade(update.getRegNo(), update.getCourseCode(), update.getGrade())) {
+                    rejected.put(i, new IllegalArgumentException(notEnrolledReason(update)));
+                }
             }
+            completeChanges();
+            return rejected;
+        });
+    }
+
+    // Only reached for rejected grades, so the extra lookups cost nothing on the common path.
+    private String notEnrolledReason(GradeUpdate update) {
+        if (studentService.findStudentByRegNo(update.getRegNo()).isEmpty()) {
+            return "Student not found with registration number: " + update.getRegNo();
         }
-        return result;
+        if (courseService.findCourseByCode(update.getCourseCode()).isEmpty()) {
+            return "Course not found with code: " + update.getCourseCode();
+        }
+        return "Enrollment record not found.";
     }
 
     /**
-     * Retrieves all enrollment records for a specific course.
+     * Retrieves all enrollment records for a specific student, in the order they were made.
+     * @param regNo The student's registration number.
+     * @return A new list of Enrollment views.
+     */
+    public List<Enrollment> getEnrollmentsForStudent(String regNo) {
+        return FOR_STUDENT.time(() -> store.forStudent(regNo));
+    }
+
+    /**
+     * Retrieves all enrollment records for a specific course, in the order the students enrolled.
      * @param courseCode The course code.
-     * @return A list of enrollments for the given course.
+     * @return A new list of Enrollment views for the given course.
      */
     public List<Enrollment> getEnrollmentsForCourse(String courseCode) {
-        List<Enrollment> result = new ArrayList<>();
-        for (Enrollment e : enrollments) {
-            if (e.getCourse().getCode().equals(courseCode)) {
-                result.add(e);
+        return FOR_COURSE.time(() -> store.forCourse(courseCode));
+    }
+
+    /**
+     * Returns every enrollment in the system, as a snapshot: nothing is copied,
+     * and enrollments made while the caller reads it are not included.
+     * The order is not significant.
+     * @return An unmodifiable list of Enrollment views.
+     */
+    public List<Enrollment> getAllEnrollments() {
+        return GET_ALL.time(() -> store.snapshot());
+    }
+
+    /**
+     * Returns an immutable view of every enrollment as it is now. Taking it
+     * copies no enrollments, and reading it takes no locks, so reports and
+     * exports can iterate it for as long as they need while other threads
+     * keep enrolling and grading. Consecutive calls with no change in
+     * between return the same snapshot.
+     * @return The current snapshot.
+     */
+    public EnrollmentSnapshot snapshot() {
+        return SNAPSHOT.time(() -> store.snapshot());
+    }
+
+    /**
+     * @return The number of enrollments currently recorded.
+     */
+    public int getEnrollmentCount() {
+        return store.size();
+    }
+
+    /**
+     * @return The approximate heap taken by the enrollment store's per-enrollment arrays, in bytes.
+     */
+    public long getStorageBytes() {
+        return store.slotBytes();
+    }
+
+    /**
+     * Private helper that runs the duplicate and credit-limit checks and records the enrollment.
+     */
+    private void addEnrollment(Enrollment enrollment) throws MaxCreditLimitExceededException, DuplicateEnrollmentException {
+        Student student = enrollment.getStudent();
+        Course course = enrollment.getCourse();
+
+        // Hold the student's lock so the checks and the insert are one atomic step.
+        synchronized (lockFor(student.getRegNo())) {
+            // Check for duplicate enrollment
+            if (isEnrolled(student, course))
+                throw new DuplicateEnrollmentException("Student already enrolled in this course.");
+
+            // Check if adding this course exceeds the maximum credit limit for the semester
+            int currentCredits = getCurrentCredits(student, course.getSemester());
+            if ((currentCredits + course.getCredits()) > MAX_CREDITS_PER_SEMESTER)
+                throw new MaxCreditLimitExceededException("Max credit limit exceeded for the semester.");
+
+            store.add(student, course, enrollment.getGrade(), enrollment.getEnrollmentDate());
+            student.enrollCourse(course.getCode());
+            for (EnrollmentListener listener : listeners) {
+                listener.onEnrolled(enrollment);
             }
         }
-        return result;
     }
 
     /**
-     * Returns a copy of the list of all enrollments in the system.
-     * @return A new ArrayList containing all enrollments.
+     * Private helper that changes one grade under the student's lock and tells the listeners.
+     * @return false if the student is not enrolled in the course.
      */
-    public List<Enrollment> getAllEnrollments() {
-        return new ArrayList<>(enrollments);
+    private boolean regrade(String regNo, String courseCode, Grade grade) {
+        synchronized (lockFor(regNo)) {
+            Enrollment enrollment = store.setGrade(regNo, courseCode, grade);
+            if (enrollment == null) {
+                return false;
+            }
+            Grade oldGrade = enrollment.getGrade();
+            enrollment.setGrade(grade);
+            for (EnrollmentListener listener : listeners) {
+                listener.onGradeChanged(enrollment, oldGrade);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Private helper to tell the listeners a call's changes are made. Called
+     * after the student locks are released, so a listener waiting for the
+     * disk holds up only this call.
+     */
+    private void completeChanges() {
+        for (EnrollmentListener listener : listeners) {
+            listener.onChangesComplete();
+        }
+    }
+
+    /**
+     * Private helper to pick the striped lock that guards a student's enrollments.
+     */
+    private Object lockFor(String regNo) {
+        int h = regNo == null ? 0 : regNo.hashCode();
+        // Spread the high bits down so stripes are used evenly.
+        h ^= (h >>> 16);
+        return studentLocks[h & (LOCK_STRIPES - 1)];
     }
 
     /**
      * Private helper to check if a student is already enrolled in a course.
      */
     private boolean isEnrolled(Student student, Course course) {
-        return enrollments.stream().anyMatch(enrollment ->
-                enrollment.getStudent().equals(student) &&
-                enrollment.getCourse().equals(course));
+        return store.contains(student.getRegNo(), course.getCode());
     }
 
     /**
-     * Private helper to calculate the current total credits for a student in a given semester.
+     * Private helper to look up the current total credits for a student in a given semester.
+     * Callers must hold the student's lock.
      */
     private int getCurrentCredits(Student student, Semester semester) {
-        return enrollments.stream()
-            .filter(e -> e.getStudent().equals(student) && e.getCourse().getSemester() == semester)
-            .mapToInt(e -> e.getCourse().getCredits())
-            .sum();
+        return store.credits(student.getRegNo(), semester);
     }
 }
\ No newline at end of file
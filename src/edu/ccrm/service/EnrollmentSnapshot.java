@@ -0,0 +1,177 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * An immutable, point-in-time view of every enrollment, as returned by
+ * EnrollmentService.snapshot and getAllEnrollments.
+ *
+ * Taking one copies no enrollments, and reading one takes no locks:
+ * enrollments, unenrollments and grade changes made afterwards are simply not
+ * visible in it, so a long report or export sees one consistent state however
+ * long it runs. Enrollment objects are built as the list is read.
+ *
+ * Each snapshot carries the store's version at the time it was taken; two
+ * snapshots with the same version hold the same enrollments.
+ */
+public final class EnrollmentSnapshot extends AbstractList<Enrollment> implements RandomAccess {
+    private static final int NONE = EnrollmentStore.NONE;
+    private static final int BITS = EnrollmentStore.CHUNK_BITS;
+    private static final int MASK = EnrollmentStore.CHUNK_MASK;
+    private static final Grade[] GRADES = Grade.values();
+
+    private final long version;
+    private final int size;
+    private final EnrollmentStore.SlotChunk[] slots;
+    private final int studentCount;
+    private final EnrollmentStore.IdChunk[] students;
+    private final Map<String, Integer> studentIds;
+    private final int courseCount;
+    private final EnrollmentStore.IdChunk[] courses;
+    private final Map<String, Integer> courseIds;
+
+    EnrollmentSnapshot(long version, int size, EnrollmentStore.SlotChunk[] slots,
+                       int studentCount, EnrollmentStore.IdChunk[] students, Map<String, Integer> studentIds,
+                       int courseCount, EnrollmentStore.IdChunk[] courses, Map<String, Integer> courseIds) {
+        this.version = version;
+        this.size = size;
+        this.slots = slots;
+        this.studentCount = studentCount;
+        this.students = students;
+        this.studentIds = studentIds;
+        this.courseCount = courseCount;
+        this.courses = courses;
+        this.courseIds = courseIds;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The enrollment at a position; positions follow storage order, which is not significant.
+     */
+    @Override
+    public Enrollment get(int index) {
+        Objects.checkIndex(index, size);
+        return view(index);
+    }
+
+    /**
+     * @param regNo The student's registration number.
+     * @return The student's enrollments, in the order they were made.
+     */
+    public List<Enrollment> getEnrollmentsForStudent(String regNo) {
+        List<Enrollment> result = new ArrayList<>();
+        int studentId = id(studentIds, regNo, studentCount);
+        if (studentId != NONE) {
+            for (int slot = students[studentId >>> BITS].first[studentId & MASK]; slot != NONE;
+                 slot = slots[slot >>> BITS].nextOfStudent[slot & MASK]) {
+                checkLength(result.size());
+                result.add(view(slot));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param courseCode The course code (case-insensitive).
+     * @return The course's enrollments, in the order they were made.
+     */
+    public List<Enrollment> getEnrollmentsForCourse(String courseCode) {
+        List<Enrollment> result = new ArrayList<>();
+        int courseId = id(courseIds, CourseService.fold(courseCode), courseCount);
+        if (courseId != NONE) {
+            for (int slot = courses[courseId >>> BITS].first[courseId & MASK]; slot != NONE;
+                 slot = slots[slot >>> BITS].nextOfCourse[slot & MASK]) {
+                checkLength(result.size());
+                result.add(view(slot));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return The slot holding the student's enrollment in the course, or NONE.
+     */
+    int find(String regNo, String courseCode) {
+        int studentId = id(studentIds, regNo, studentCount);
+        int courseId = id(courseIds, CourseService.fold(courseCode), courseCount);
+        if (studentId == NONE || courseId == NONE) {
+            return NONE;
+        }
+        int steps = 0;
+        for (int slot = students[studentId >>> BITS].first[studentId & MASK]; slot != NONE;
+             slot = slots[slot >>> BITS].nextOfStudent[slot & MASK]) {
+            if (slots[slot >>> BITS].courseOf[slot & MASK] == courseId) {
+                return slot;
+            }
+            checkLength(steps++);
+        }
+        return NONE;
+    }
+
+    /**
+     * @return The credits a student is taking in a semester, from the store's running totals.
+     */
+    int credits(String regNo, Semester semester) {
+        int studentId = id(studentIds, regNo, studentCount);
+        if (studentId == NONE) {
+            return 0;
+        }
+        return students[studentId >>> BITS].credits[(studentId & MASK) * EnrollmentStore.SEMESTERS + semester.ordinal()];
+    }
+
+    /**
+     * @return A new Enrollment holding the slot's values.
+     */
+    Enrollment view(int slot) {
+        EnrollmentStore.SlotChunk chunk = slots[slot >>> BITS];
+        int i = slot & MASK;
+        int studentId = chunk.studentOf[i];
+        Enrollment enrollment = new Enrollment((Student) students[studentId >>> BITS].records[studentId & MASK],
+                course(chunk.courseOf[i]), LocalDate.ofEpochDay(chunk.dayOf[i]));
+        enrollment.setGrade(GRADES[chunk.gradeOf[i]]);
+        return enrollment;
+    }
+
+    /**
+     * Private helper that stops a chain walk that has gone on longer than the
+     * list. A snapshot's chains always end; the store's live arrays, read
+     * without a lock, can briefly hold a cycle, and the store retries the read.
+     */
+    private void checkLength(int steps) {
+        if (steps >= size) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    private Course course(int courseId) {
+        return (Course) courses[courseId >>> BITS].records[courseId & MASK];
+    }
+
+    /**
+     * Private helper that looks up an id, ignoring ids assigned after this snapshot was taken.
+     */
+    private static int id(Map<String, Integer> ids, String key, int count) {
+        Integer id = key == null ? null : ids.get(key);
+        return id == null || id >= count ? NONE : id;
+    }
+}
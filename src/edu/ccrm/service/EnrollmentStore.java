@@ -0,0 +1,467 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+
+/**
+ * Compact storage for enrollments, used by EnrollmentService.
+ *
+ * Students and courses are given dense int ids the first time they are
+ * enrolled (courses by case-folded code, as CourseService matches them),
+ * and each enrollment is a slot in a set of parallel primitive arrays:
+ * student id, course id, grade ordinal and enrollment date as an epoch day.
+ * Enrollment objects are only built, as read-only views, when a caller asks
+ * for them; changing a view's grade does not change the store.
+ *
+ * A student's enrollments are chained together through one more int per
+ * slot, and a course's through another. New enrollments go on the end of
+ * both chains, so walking a chain lists a student's or a course's
+ * enrollments in the order they were made, with no sorting. Each student
+ * also has a running credit total per semester, so the credit-limit check
+ * reads one number. Slots are kept dense: removing an enrollment moves the
+ * last one into its slot, in the same place in its chains.
+ *
+ * The arrays are split into chunks of 4096 entries so that point-in-time
+ * snapshots cost almost nothing. Taking a snapshot copies only the short
+ * arrays of chunk references and starts a new epoch; a chunk from an earlier
+ * epoch may be shared with a snapshot, so the first write to it afterwards
+ * copies it.
+ *
+ * Changes are made one at a time under a StampedLock's write lock, held
+ * only for the few array writes of the change itself. Nothing reads under a
+ * lock: reads are optimistic, run against the live arrays and are retried if
+ * a change overlapped them, so readers never hold up a change. Only a reader
+ * that keeps being overtaken falls back to the read lock. The latest
+ * snapshot is published through a volatile field and handed out again until
+ * the next change.
+ */
+final class EnrollmentStore {
+    static final int NONE = -1;
+    static final int CHUNK_BITS = 12;
+    static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    static final int SEMESTERS = Semester.values().length;
+
+    // Optimistic attempts before a reader waits for the read lock instead.
+    private static final int OPTIMISTIC_ATTEMPTS = 64;
+
+    /**
+     * The per-slot columns for CHUNK_SIZE consecutive slots.
+     */
+    static final class SlotChunk {
+        final long epoch;
+        final int[] studentOf;
+        final int[] courseOf;
+        final byte[] gradeOf;
+        final int[] dayOf;
+        final int[] nextOfStudent;
+        final int[] nextOfCourse;
+
+        SlotChunk(long epoch) {
+            this.epoch = epoch;
+            studentOf = new int[CHUNK_SIZE];
+            courseOf = new int[CHUNK_SIZE];
+            gradeOf = new byte[CHUNK_SIZE];
+            dayOf = new int[CHUNK_SIZE];
+            nextOfStudent = new int[CHUNK_SIZE];
+            nextOfCourse = new int[CHUNK_SIZE];
+        }
+
+        SlotChunk(SlotChunk from, long epoch) {
+            this.epoch = epoch;
+            studentOf = from.studentOf.clone();
+            courseOf = from.courseOf.clone();
+            gradeOf = from.gradeOf.clone();
+            dayOf = from.dayOf.clone();
+            nextOfStudent = from.nextOfStudent.clone();
+            nextOfCourse = from.nextOfCourse.clone();
+        }
+    }
+
+    /**
+     * The records, the first and last slots of their chains and, for
+     * students, the credits taken per semester, for CHUNK_SIZE consecutive
+     * student or course ids.
+     */
+    static final class IdChunk {
+        final long epoch;
+        final Object[] records;
+        final int[] first;
+        final int[] last;
+        // Indexed by (id & CHUNK_MASK) * SEMESTERS + semester ordinal; null for courses.
+        final int[] credits;
+
+        IdChunk(long epoch, boolean isStudent) {
+            this.epoch = epoch;
+            records = new Object[CHUNK_SIZE];
+            first = new int[CHUNK_SIZE];
+            last = new int[CHUNK_SIZE];
+            credits = isStudent ? new int[CHUNK_SIZE * SEMESTERS] : null;
+            Arrays.fill(first, NONE);
+            Arrays.fill(last, NONE);
+        }
+
+        IdChunk(IdChunk from, long epoch) {
+            this.epoch = epoch;
+            records = from.records.clone();
+            first = from.first.clone();
+            last = from.last.clone();
+            credits = from.credits == null ? null : from.credits.clone();
+        }
+    }
+
+    private final StampedLock lock = new StampedLock();
+
+    // Written under the write lock, read without it; ids at or past a reader's count are ignored.
+    private final Map<String, Integer> studentIds = new ConcurrentHashMap<>();
+    private final Map<String, Integer> courseIds = new ConcurrentHashMap<>();
+    private IdChunk[] studentChunks = new IdChunk[0];
+    private IdChunk[] courseChunks = new IdChunk[0];
+    private SlotChunk[] slotChunks = new SlotChunk[0];
+    private int studentCount;
+    private int courseCount;
+    private int size;
+
+    // Chunks from an earlier epoch may be shared with a snapshot and are copied before being written.
+    private final AtomicLong epoch = new AtomicLong();
+    // Bumped by every change, so an unchanged store hands out the same snapshot again.
+    private volatile long version;
+    private volatile EnrollmentSnapshot published;
+
+    /**
+     * Stores a new enrollment. The caller must already have checked it is not a duplicate.
+     */
+    void add(Student student, Course course, Grade grade, LocalDate enrollmentDate) {
+        long stamp = lock.writeLock();
+        try {
+            int studentId = idFor(studentIds, student.getRegNo(), student, true);
+            int courseId = idFor(courseIds, CourseService.fold(course.getCode()), course, false);
+            int slot = size;
+            if ((slot >>> CHUNK_BITS) == slotChunks.length) {
+                slotChunks = Arrays.copyOf(slotChunks, slotChunks.length + 1);
+            }
+            SlotChunk chunk = writableSlots(slot);
+            int i = slot & CHUNK_MASK;
+            chunk.studentOf[i] = studentId;
+            chunk.courseOf[i] = courseId;
+            chunk.gradeOf[i] = (byte) (grade == null ? Grade.NOT_GRADED : grade).ordinal();
+            chunk.dayOf[i] = Math.toIntExact(enrollmentDate.toEpochDay());
+            chunk.nextOfStudent[i] = NONE;
+            chunk.nextOfCourse[i] = NONE;
+
+            IdChunk students = writableIds(studentChunks, studentId, true);
+            int s = studentId & CHUNK_MASK;
+            if (students.last[s] == NONE) {
+                students.first[s] = slot;
+            } else {
+                writableSlots(students.last[s]).nextOfStudent[students.last[s] & CHUNK_MASK] = slot;
+            }
+            students.last[s] = slot;
+            students.credits[s * SEMESTERS + course.getSemester().ordinal()] += course.getCredits();
+
+            IdChunk courses = writableIds(courseChunks, courseId, false);
+            int c = courseId & CHUNK_MASK;
+            if (courses.last[c] == NONE) {
+                courses.first[c] = slot;
+            } else {
+                writableSlots(courses.last[c]).nextOfCourse[courses.last[c] & CHUNK_MASK] = slot;
+            }
+            courses.last[c] = slot;
+            size++;
+            version++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Points every enrollment in a course at an updated Course object. The
+     * course table is the one place enrollments reach their course through,
+     * so this is a single write however many students are enrolled.
+     */
+    void replaceCourse(Course course) {
+        long stamp = lock.writeLock();
+        try {
+            Integer courseId = courseIds.get(CourseService.fold(course.getCode()));
+            if (courseId != null) {
+                writableIds(courseChunks, courseId, false).records[courseId & CHUNK_MASK] = course;
+                version++;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    boolean contains(String regNo, String courseCode) {
+        return read(live -> live.find(regNo, courseCode) != NONE);
+    }
+
+    /**
+     * Removes the student's enrollment in the course.
+     * @return A view of the enrollment as it was just before removal, or null if there was none.
+     */
+    Enrollment remove(String regNo, String courseCode) {
+        long stamp = lock.writeLock();
+        try {
+            EnrollmentSnapshot live = live();
+            int slot = live.find(regNo, courseCode);
+            if (slot == NONE) {
+                return null;
+            }
+            Enrollment removed = live.view(slot);
+            SlotChunk chunk = slotChunks[slot >>> CHUNK_BITS];
+            int i = slot & CHUNK_MASK;
+            int studentId = chunk.studentOf[i];
+            Course course = removed.getCourse();
+            writableIds(studentChunks, studentId, true)
+                    .credits[(studentId & CHUNK_MASK) * SEMESTERS + course.getSemester().ordinal()] -= course.getCredits();
+            repoint(slot, chunk.nextOfStudent[i], chunk.nextOfCourse[i], false);
+            int last = size - 1;
+            if (slot != last) {
+                // Keep slots dense: move the last enrollment into the freed slot.
+                repoint(last, slot, slot, true);
+                SlotChunk from = slotChunks[last >>> CHUNK_BITS];
+                int j = last & CHUNK_MASK;
+                SlotChunk to = writableSlots(slot);
+                to.studentOf[i] = from.studentOf[j];
+                to.courseOf[i] = from.courseOf[j];
+                to.gradeOf[i] = from.gradeOf[j];
+                to.dayOf[i] = from.dayOf[j];
+                to.nextOfStudent[i] = from.nextOfStudent[j];
+                to.nextOfCourse[i] = from.nextOfCourse[j];
+            }
+            size--;
+            version++;
+            return removed;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Changes the grade of the student's enrollment in the course.
+     * @return A view of the enrollment as it was before the change, or null if the student is not enrolled in the course.
+     */
+    Enrollment setGrade(String regNo, String courseCode, Grade grade) {
+        long stamp = lock.writeLock();
+        try {
+            EnrollmentSnapshot live = live();
+            int slot = live.find(regNo, courseCode);
+            if (slot == NONE) {
+                return null;
+            }
+            Enrollment previous = live.view(slot);
+            writableSlots(slot).gradeOf[slot & CHUNK_MASK] = (byte) grade.ordinal();
+            version++;
+            return previous;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    List<Enrollment> forStudent(String regNo) {
+        return read(live -> live.getEnrollmentsForStudent(regNo));
+    }
+
+    List<Enrollment> forCourse(String courseCode) {
+        return read(live -> live.getEnrollmentsForCourse(courseCode));
+    }
+
+    /**
+     * @return The credits a student is taking in a semester, from the running totals.
+     */
+    int credits(String regNo, Semester semester) {
+        return read(live -> live.credits(regNo, semester));
+    }
+
+    int size() {
+        return read(EnrollmentSnapshot::size);
+    }
+
+    /**
+     * Returns the store as it is now. Later changes copy the chunks they touch
+     * instead of writing into the ones the snapshot holds.
+     */
+    EnrollmentSnapshot snapshot() {
+        EnrollmentSnapshot current = published;
+        if (current != null && current.getVersion() == version) {
+            return current;
+        }
+        EnrollmentSnapshot taken = read(live -> {
+            // Start a new epoch before reading the chunk arrays: any change
+            // that overlaps this read fails validation and it is retried.
+            epoch.incrementAndGet();
+            return new EnrollmentSnapshot(live.getVersion(), live.size(), slotChunks.clone(),
+                    studentCount, studentChunks.clone(), studentIds,
+                    courseCount, courseChunks.clone(), courseIds);
+        });
+        published = taken;
+        return taken;
+    }
+
+    /**
+     * @return The bytes taken by the per-slot arrays, including unused capacity in the last chunk.
+     */
+    long slotBytes() {
+        // Five int columns and one byte column.
+        return read(live -> (long) slotChunks.length * CHUNK_SIZE * (5 * Integer.BYTES + Byte.BYTES));
+    }
+
+    /**
+     * Private helper that runs a read against the live arrays without locking.
+     * The result is kept only if no change was made while it ran; otherwise
+     * the read is retried, and an exception it threw because the arrays moved
+     * under it is discarded. After OPTIMISTIC_ATTEMPTS tries it waits for the
+     * read lock, so a reader always finishes.
+     */
+    private <T> T read(Function<EnrollmentSnapshot, T> reader) {
+        for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS; attempt++) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                try {
+                    T result = reader.apply(live());
+                    if (lock.validate(stamp)) {
+                        return result;
+                    }
+                } catch (RuntimeException e) {
+                    if (lock.validate(stamp)) {
+                        throw e;
+                    }
+                }
+            }
+            Thread.onSpinWait();
+        }
+        long stamp = lock.readLock();
+        try {
+            return reader.apply(live());
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Private helper that wraps the live arrays for reading. Only consistent
+     * under the write lock or inside a validated optimistic read.
+     */
+    private EnrollmentSnapshot live() {
+        return new EnrollmentSnapshot(version, size, slotChunks, studentCount, studentChunks, studentIds,
+                courseCount, courseChunks, courseIds);
+    }
+
+    /**
+     * Private helper that returns a student's or course's id, assigning the next one on first use.
+     */
+    private int idFor(Map<String, Integer> ids, String key, Object record, boolean isStudent) {
+        Integer existing = ids.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        int id = isStudent ? studentCount : courseCount;
+        IdChunk[] chunks = isStudent ? studentChunks : courseChunks;
+        if ((id >>> CHUNK_BITS) == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunks.length + 1);
+            if (isStudent) {
+                studentChunks = chunks;
+            } else {
+                courseChunks = chunks;
+            }
+        }
+        writableIds(chunks, id, isStudent).records[id & CHUNK_MASK] = record;
+        // Counted only once the record is in place, so a reader never finds an id without one.
+        if (isStudent) {
+            studentCount++;
+        } else {
+            courseCount++;
+        }
+        ids.put(key, id);
+        return id;
+    }
+
+    /**
+     * Private helper that makes whatever points at a slot, in its student chain
+     * and in its course chain, point somewhere else instead. If the slot ends a
+     * chain, the chain's last slot becomes the replacement if the slot is
+     * moving, or the one before it if the slot is being unlinked.
+     */
+    private void repoint(int slot, int studentReplacement, int courseReplacement, boolean moving) {
+        SlotChunk chunk = slotChunks[slot >>> CHUNK_BITS];
+        int i = slot & CHUNK_MASK;
+        int studentId = chunk.studentOf[i];
+        int courseId = chunk.courseOf[i];
+
+        IdChunk students = studentChunks[studentId >>> CHUNK_BITS];
+        int s = studentId & CHUNK_MASK;
+        int prev = NONE;
+        if (students.first[s] == slot) {
+            writableIds(studentChunks, studentId, true).first[s] = studentReplacement;
+        } else {
+            prev = students.first[s];
+            while (slotChunks[prev >>> CHUNK_BITS].nextOfStudent[prev & CHUNK_MASK] != slot) {
+                prev = slotChunks[prev >>> CHUNK_BITS].nextOfStudent[prev & CHUNK_MASK];
+            }
+            writableSlots(prev).nextOfStudent[prev & CHUNK_MASK] = studentReplacement;
+        }
+        if (studentChunks[studentId >>> CHUNK_BITS].last[s] == slot) {
+            writableIds(studentChunks, studentId, true).last[s] = moving ? studentReplacement : prev;
+        }
+
+        IdChunk courses = courseChunks[courseId >>> CHUNK_BITS];
+        int c = courseId & CHUNK_MASK;
+        prev = NONE;
+        if (courses.first[c] == slot) {
+            writableIds(courseChunks, courseId, false).first[c] = courseReplacement;
+        } else {
+            prev = courses.first[c];
+            while (slotChunks[prev >>> CHUNK_BITS].nextOfCourse[prev & CHUNK_MASK] != slot) {
+                prev = slotChunks[prev >>> CHUNK_BITS].nextOfCourse[prev & CHUNK_MASK];
+            }
+            writableSlots(prev).nextOfCourse[prev & CHUNK_MASK] = courseReplacement;
+        }
+        if (courseChunks[courseId >>> CHUNK_BITS].last[c] == slot) {
+            writableIds(courseChunks, courseId, false).last[c] = moving ? courseReplacement : prev;
+        }
+    }
+
+    /**
+     * Private helper that returns the chunk holding a slot, ready to be written:
+     * created if new, copied first if it may be shared with a snapshot.
+     * Callers hold the write lock.
+     */
+    private SlotChunk writableSlots(int slot) {
+        int index = slot >>> CHUNK_BITS;
+        long current = epoch.get();
+        SlotChunk chunk = slotChunks[index];
+        if (chunk == null) {
+            chunk = slotChunks[index] = new SlotChunk(current);
+        } else if (chunk.epoch != current) {
+            chunk = slotChunks[index] = new SlotChunk(chunk, current);
+        }
+        return chunk;
+    }
+
+    /**
+     * Private helper that does the same as writableSlots for a student or course id.
+     */
+    private IdChunk writableIds(IdChunk[] chunks, int id, boolean isStudent) {
+        int index = id >>> CHUNK_BITS;
+        long current = epoch.get();
+        IdChunk chunk = chunks[index];
+        if (chunk == null) {
+            chunk = chunks[index] = new IdChunk(current, isStudent);
+        } else if (chunk.epoch != current) {
+            chunk = chunks[index] = new IdChunk(chunk, current);
+        }
+        return chunk;
+    }
+}
@@ -0,0 +1,33 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Grade;
+
+/**
+ * One grade to record through EnrollmentService.recordGrades: the student,
+ * the course and the new grade, and nothing else.
+ */
+public final class GradeUpdate {
+    private final String regNo;
+    private final String courseCode;
+    private final Grade grade;
+
+    /**
+     * @param regNo The student's registration number.
+     * @param courseCode The course code (case-insensitive).
+     * @param grade The grade to record.
+     */
+    public GradeUpdate(String regNo, String courseCode, Grade grade) {
+        this.regNo = regNo;
+        this.courseCode = courseCode;
+        this.grade = grade;
+    }
+
+    public String getRegNo() { return regNo; }
+    public String getCourseCode() { return courseCode; }
+    public Grade getGrade() { return grade; }
+
+    @Override
+    public String toString() {
+        return String.format("%s, %s: %s", regNo, courseCode, grade);
+    }
+}
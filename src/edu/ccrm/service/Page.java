@@ -0,0 +1,95 @@
+package edu.ccrm.service;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * One page of a listing, and the cursor to ask for the next one.
+ *
+ * Students and courses are only ever appended to their services' lists, so
+ * a cursor is simply a position in that list: a page read after new records
+ * were added carries on where the previous page stopped, without skipping or
+ * repeating anything. Only the records on the page are copied.
+ *
+ * @param <T> The type of record listed.
+ */
+public final class Page<T> {
+    /** The cursor of the first page. */
+    public static final int START = 0;
+    /** The next cursor of the last page. */
+    public static final int END = -1;
+
+    private final List<T> items;
+    private final int nextCursor;
+
+    Page(List<T> items, int nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * @return The records on this page, in listing order.
+     */
+    public List<T> getItems() { return items; }
+
+    /**
+     * @return The cursor to pass for the following page, or END if this is the last one.
+     */
+    public int getNextCursor() { return nextCursor; }
+
+    public boolean hasNext() { return nextCursor != END; }
+
+    /**
+     * Builds a page from a slice of a list, copying only the slice.
+     * Callers must hold whatever lock guards the list.
+     */
+    static <T> Page<T> of(List<T> all, int cursor, int limit) {
+        if (cursor < 0) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page size must be positive: " + limit);
+        }
+        int from = Math.min(cursor, all.size());
+        int to = (int) Math.min((long) from + limit, all.size());
+        return new Page<>(List.copyOf(all.subList(from, to)), to < all.size() ? to : END);
+    }
+
+    /**
+     * Returns a lazy stream that fetches one page at a time as it is consumed,
+     * so a stream that stops early never reads the rest of the listing.
+     * @param fetch Reads the page at a cursor with a given page size.
+     * @param pageSize The number of records to fetch at once.
+     */
+    static <T> Stream<T> stream(BiFunction<Integer, Integer, Page<T>> fetch, int pageSize) {
+        Iterator<T> records = new Iterator<T>() {
+            private Iterator<T> page = List.<T>of().iterator();
+            private int cursor = START;
+
+            @Override
+            public boolean hasNext() {
+                while (!page.hasNext() && cursor != END) {
+                    Page<T> next = fetch.apply(cursor, pageSize);
+                    page = next.getItems().iterator();
+                    cursor = next.getNextCursor();
+                }
+                return page.hasNext();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.next();
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(records, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+}
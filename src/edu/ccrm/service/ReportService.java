@@ -0,0 +1,250 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.metrics.Metrics;
+import edu.ccrm.metrics.OperationMetrics;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the aggregates behind the Reports menu up to date as courses and
+ * enrollments change, so reports never scan the enrollments.
+ *
+ * Register it as a listener on CourseService and EnrollmentService before any
+ * data is loaded. It then holds, per course, the grade distribution, and per
+ * department the number of courses, enrollments, credit hours and distinct
+ * enrolled students. Per-course enrollment counts are not duplicated here:
+ * they are read from CourseService's live counters. Courses are keyed by
+ * case-folded code, as in CourseService. Every report costs time in
+ * proportion to the number of courses or departments, not enrollments.
+ *
+ * Listener calls can arrive from several threads at once (enrollments for
+ * different students are not serialized), so all counters are atomic.
+ */
+public class ReportService implements CourseListener, EnrollmentListener {
+    private static final OperationMetrics GRADE_DISTRIBUTION = Metrics.operation("ReportService", "getGradeDistribution");
+    private static final OperationMetrics MOST_ENROLLED = Metrics.operation("ReportService", "getMostEnrolledCourses");
+    private static final OperationMetrics DEPARTMENT_LOADS = Metrics.operation("ReportService", "getDepartmentLoads");
+    private static final OperationMetrics DEPARTMENT_LOAD = Metrics.operation("ReportService", "getDepartmentLoad");
+
+    private static final Grade[] GRADES = Grade.values();
+
+    private final CourseService courseService;
+    private final Map<String, CourseStats> statsByCourse = new ConcurrentHashMap<>();
+    private final Map<String, DepartmentStats> statsByDepartment = new ConcurrentHashMap<>();
+
+    /**
+     * Live counters for one course.
+     */
+    private static class CourseStats {
+        volatile Course course;
+        final AtomicIntegerArray grades = new AtomicIntegerArray(GRADES.length);
+
+        CourseStats(Course course) {
+            this.course = course;
+        }
+    }
+
+    /**
+     * Live counters for one department. Students are counted once however
+     * many of the department's courses they take, by keeping how many each
+     * student takes and dropping them when that reaches zero.
+     */
+    private static class DepartmentStats {
+        final String name;
+        final AtomicInteger courses = new AtomicInteger();
+        final AtomicLong enrollments = new AtomicLong();
+        final AtomicLong creditHours = new AtomicLong();
+        final Map<String, Integer> coursesPerStudent = new ConcurrentHashMap<>();
+
+        DepartmentStats(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * One row of the department load report.
+     */
+    public static class DepartmentLoad {
+        private final String department;
+        private final int courses;
+        private final int students;
+        private final long enrollments;
+        private final long creditHours;
+
+        DepartmentLoad(String department, int courses, int students, long enrollments, long creditHours) {
+            this.department = department;
+            this.courses = courses;
+            this.students = students;
+            this.enrollments = enrollments;
+            this.creditHours = creditHours;
+        }
+
+        public String getDepartment() { return department; }
+        public int getCourses() { return courses; }
+        public int getStudents() { return students; }
+        public long getEnrollments() { return enrollments; }
+        public long getCreditHours() { return creditHours; }
+
+        @Override
+        public String toString() {
+            return String.format("%-25s | %5d courses | %7d students | %8d enrollments | %9d credit hours",
+                    department, courses, students, enrollments, creditHours);
+        }
+    }
+
+    /**
+     * @param courseService The service whose per-course enrollment counters the reports read.
+     */
+    public ReportService(CourseService courseService) {
+        this.courseService = courseService;
+    }
+
+    @Override
+    public void onCourseAdded(Course course) {
+        if (statsByCourse.putIfAbsent(CourseService.fold(course.getCode()), new CourseStats(course)) == null) {
+            department(course.getDepartment()).courses.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void onCourseUpdated(Course oldCourse, Course newCourse) {
+        CourseStats stats = statsByCourse.get(CourseService.fold(newCourse.getCode()));
+        if (stats != null) {
+            stats.course = newCourse;
+        }
+    }
+
+    @Override
+    public void onEnrolled(Enrollment enrollment) {
+        apply(enrollment, enrollment.getGrade(), 1);
+    }
+
+    @Override
+    public void onUnenrolled(Enrollment enrollment) {
+        apply(enrollment, enrollment.getGrade(), -1);
+    }
+
+    @Override
+    public void onGradeChanged(Enrollment enrollment, Grade oldGrade) {
+        CourseStats stats = statsByCourse.get(CourseService.fold(enrollment.getCourse().getCode()));
+        if (stats != null) {
+            stats.grades.decrementAndGet(index(oldGrade));
+            stats.grades.incrementAndGet(index(enrollment.getGrade()));
+        }
+    }
+
+    /**
+     * Returns how many students in a course hold each grade.
+     * @param courseCode The course code (case-insensitive).
+     * @return Every grade, in declaration order, mapped to its count (all zero for an unknown course).
+     */
+    public Map<Grade, Integer> getGradeDistribution(String courseCode) {
+        return GRADE_DISTRIBUTION.time(() -> {
+            CourseStats stats = statsByCourse.get(CourseService.fold(courseCode));
+            Map<Grade, Integer> distribution = new EnumMap<>(Grade.class);
+            for (Grade grade : GRADES) {
+                distribution.put(grade, stats == null ? 0 : stats.grades.get(grade.ordinal()));
+            }
+            return distribution;
+        });
+    }
+
+    /**
+     * Returns the courses with the most students, largest first; ties are broken by course code.
+     * @param limit The maximum number of courses to return.
+     * @return Course codes mapped to their enrollment counts, in order.
+     */
+    public Map<String, Integer> getMostEnrolledCourses(int limit) {
+        return MOST_ENROLLED.time(() -> {
+            // Read each count once, so concurrent enrollments cannot change the order mid-sort.
+            List<Map.Entry<String, Integer>> counts = new ArrayList<>();
+            for (CourseStats stats : statsByCourse.values()) {
+                String code = stats.course.getCode();
+                counts.add(Map.entry(code, courseService.enrollmentCount(code)));
+            }
+            counts.sort(Map.Entry.<String, Integer>comparingByValue().reversed()
+                    .thenComparing(Map.Entry.comparingByKey()));
+            Map<String, Integer> result = new LinkedHashMap<>();
+            for (Map.Entry<String, Integer> entry : counts.subList(0, Math.min(limit, counts.size()))) {
+                result.put(entry.getKey(), entry.getValue());
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Returns the load on every department, busiest (most enrollments) first.
+     * @return One row per department that has at least one course.
+     */
+    public List<DepartmentLoad> getDepartmentLoads() {
+        return DEPARTMENT_LOADS.time(() -> {
+            List<DepartmentLoad> result = new ArrayList<>();
+            for (DepartmentStats stats : statsByDepartment.values()) {
+                result.add(load(stats));
+            }
+            result.sort(Comparator.comparingLong(DepartmentLoad::getEnrollments).reversed()
+                    .thenComparing(DepartmentLoad::getDepartment));
+            return result;
+        });
+    }
+
+    /**
+     * Returns the load on one department.
+     * @param department The department name (case-insensitive).
+     * @return The department's counters, all zero if it has no courses.
+     */
+    public DepartmentLoad getDepartmentLoad(String department) {
+        return DEPARTMENT_LOAD.time(() -> {
+            DepartmentStats stats = statsByDepartment.get(fold(department));
+            return stats == null ? new DepartmentLoad(department, 0, 0, 0, 0) : load(stats);
+        });
+    }
+
+    /**
+     * Adds (sign 1) or removes (sign -1) one enrollment from its course's grade and department's counters.
+     */
+    private void apply(Enrollment enrollment, Grade grade, int sign) {
+        Course course = enrollment.getCourse();
+        CourseStats stats = statsByCourse.computeIfAbsent(CourseService.fold(course.getCode()), code -> new CourseStats(course));
+        stats.grades.addAndGet(index(grade), sign);
+
+        DepartmentStats dept = department(course.getDepartment());
+        dept.enrollments.addAndGet(sign);
+        dept.creditHours.addAndGet((long) sign * course.getCredits());
+        String regNo = enrollment.getStudent().getRegNo();
+        if (sign > 0) {
+            dept.coursesPerStudent.merge(regNo, 1, Integer::sum);
+        } else {
+            dept.coursesPerStudent.computeIfPresent(regNo, (k, n) -> n == 1 ? null : n - 1);
+        }
+    }
+
+    private DepartmentStats department(String name) {
+        return statsByDepartment.computeIfAbsent(fold(name), key -> new DepartmentStats(name));
+    }
+
+    private static DepartmentLoad load(DepartmentStats stats) {
+        return new DepartmentLoad(stats.name, stats.courses.get(), stats.coursesPerStudent.size(),
+                stats.enrollments.get(), stats.creditHours.get());
+    }
+
+    private static int index(Grade grade) {
+        return (grade == null ? Grade.NOT_GRADED : grade).ordinal();
+    }
+
+    private static String fold(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,97 @@
+package edu.ccrm.service;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * An append-only list that can hand out immutable point-in-time views of
+ * itself without copying.
+ *
+ * A view is just the current array and size. Appends only write past every
+ * view's size, and growing moves to a new array, so neither can change what a
+ * view sees. Replacing an element with set is the only write into shared
+ * positions: the first set after a view was taken copies the array, so the
+ * view keeps the old element.
+ *
+ * Like ArrayList it is not thread-safe: the owning service calls every
+ * method, snapshot included, under its own lock. The views it returns may
+ * then be read from any thread, for as long as needed.
+ *
+ * @param <T> The type of record held.
+ */
+final class SnapshotList<T> extends AbstractList<T> implements RandomAccess {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private Object[] elements = new Object[INITIAL_CAPACITY];
+    private int size;
+    // True while a view may be reading the current array.
+    private boolean shared;
+
+    @Override
+    public boolean add(T element) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, size + (size >> 1));
+            shared = false;
+        }
+        elements[size++] = element;
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T set(int index, T element) {
+        Objects.checkIndex(index, size);
+        if (shared) {
+            elements = elements.clone();
+            shared = false;
+        }
+        T previous = (T) elements[index];
+        elements[index] = element;
+        return previous;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        Objects.checkIndex(index, size);
+        return (T) elements[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return An unmodifiable view of the list as it is now, unaffected by later changes.
+     */
+    List<T> snapshot() {
+        shared = true;
+        return new View<>(elements, size);
+    }
+
+    private static final class View<T> extends AbstractList<T> implements RandomAccess {
+        private final Object[] elements;
+        private final int size;
+
+        View(Object[] elements, int size) {
+            this.elements = elements;
+            this.size = size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            Objects.checkIndex(index, size);
+            return (T) elements[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Student;
+
+/**
+ * Receives change events from StudentService, in the same way EnrollmentListener
+ * does for enrollments. Every method has an empty default.
+ */
+public interface StudentListener extends ChangeListener {
+
+    /**
+     * Called after a student has been added.
+     * @param student The new student.
+     */
+    default void onStudentAdded(Student student) {
+    }
+
+    /**
+     * Called after a student's email or status has changed.
+     * @param student The student, already holding the new values.
+     */
+    default void onStudentUpdated(Student student) {
+    }
+}
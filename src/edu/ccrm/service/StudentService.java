@@ -2,17 +2,66 @@
 package edu.ccrm.service;
 
 import edu.ccrm.domain.Student;
+import edu.ccrm.metrics.Metrics;
+import edu.ccrm.metrics.OperationMetrics;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
 
 /**
  * Manages all operations related to students, including adding,
  * finding, and updating student records. This class acts as an
  * in-memory database for student objects.
+ *
+ * Students are kept in insertion order for listing, and are indexed by
+ * registration number (primary key), by status and by normalized email
+ * so that lookups do not have to scan the whole list.
+ *
+ * This class is safe to call from several threads. Lookups by registration
+ * number read a concurrent map without locking, since they sit on the
+ * enrollment hot path; every other method synchronizes on the service.
  */
 public class StudentService {
-    private List<Student> students = new ArrayList<>();
+    private static final OperationMetrics ADD_STUDENT = Metrics.operation("StudentService", "addStudent");
+    private static final OperationMetrics ADD_STUDENTS = Metrics.operation("StudentService", "addStudents");
+    private static final OperationMetrics LIST_STUDENTS = Metrics.operation("StudentService", "listStudents");
+    private static final OperationMetrics LIST_STUDENTS_PAGE = Metrics.operation("StudentService", "listStudents(page)");
+    private static final OperationMetrics FIND_BY_REG_NO = Metrics.operation("StudentService", "findStudentByRegNo");
+    private static final OperationMetrics FIND_BY_STATUS = Metrics.operation("StudentService", "findStudentsByStatus");
+    private static final OperationMetrics FIND_BY_EMAIL = Metrics.operation("StudentService", "findStudentsByEmail");
+    private static final OperationMetrics GET_COUNT = Metrics.operation("StudentService", "getStudentCount");
+    private static final OperationMetrics UPDATE_EMAIL = Metrics.operation("StudentService", "updateStudentEmail");
+    private static final OperationMetrics DEACTIVATE = Metrics.operation("StudentService", "deactivateStudent");
+
+    private SnapshotList<Student> students = new SnapshotList<>();
+    private Map<String, Student> studentsByRegNo = new ConcurrentHashMap<>();
+    private Map<Student.Status, Set<Student>> studentsByStatus = new EnumMap<>(Student.Status.class);
+    private Map<String, Set<Student>> studentsByEmail = new HashMap<>();
+    private List<StudentListener> listeners = new CopyOnWriteArrayList<>();
+
+    public StudentService() {
+        for (Student.Status status : Student.Status.values()) {
+            studentsByStatus.put(status, new LinkedHashSet<>());
+        }
+    }
+
+    /**
+     * Registers a listener to be told about every added or updated student.
+     * @param listener The listener to add.
+     */
+    public void addListener(StudentListener listener) {
+        listeners.add(listener);
+    }
 
     /**
      * Adds a new student to the system.
@@ -24,21 +73,80 @@ public class StudentService {
      * @throws IllegalArgumentException if a student with the same regNo already exists.
      */
     public void addStudent(String regNo, String fullName, String email) {
-        if (findStudentByRegNo(regNo).isPresent()) {
-            throw new IllegalArgumentException("Student with this registration number already exists.");
-        }
-        // Create a new Student instance and add it to our list.
-        Student student = new Student(regNo, fullName, email);
-        students.add(student);
+        ADD_STUDENT.time(() -> {
+            synchronized (this) {
+                if (studentsByRegNo.containsKey(regNo)) {
+                    throw new IllegalArgumentException("Student with this registration number already exists.");
+                }
+                // Create a new Student instance and add it to our list and indexes.
+                insert(new Student(regNo, fullName, email));
+            }
+            completeChanges();
+        });
+    }
+
+    /**
+     * Adds a batch of already-constructed students in a single pass.
+     * Students whose registration number is already in use are skipped,
+     * matching the duplicate handling of the CSV import.
+     *
+     * @param batch The students to add, in the order they should be listed.
+     * @return The number of students actually added.
+     */
+    public int addStudents(Collection<Student> batch) {
+        return ADD_STUDENTS.time(() -> {
+            int added = 0;
+            synchronized (this) {
+                for (Student student : batch) {
+                    if (!studentsByRegNo.containsKey(student.getRegNo())) {
+                        insert(student);
+                        added++;
+                    }
+                }
+            }
+            completeChanges();
+            return added;
+        });
     }
 
     /**
-     * Retrieves a list of all students currently in the system.
+     * Retrieves a list of all students currently in the system, in the order they were added.
+     * Nothing is copied: the list is an unmodifiable point-in-time view that
+     * later additions do not change, so it can be read at leisure while
+     * other threads keep adding students.
      *
-     * @return A new ArrayList containing all students, to prevent external modification of the master list.
+     * @return An unmodifiable list of all students.
      */
     public List<Student> listStudents() {
-        return new ArrayList<>(students);
+        return LIST_STUDENTS.time(() -> {
+            synchronized (this) {
+                return students.snapshot();
+            }
+        });
+    }
+
+    /**
+     * Retrieves one page of students, in the order they were added, copying only that page.
+     * @param cursor Page.START for the first page, otherwise the previous page's next cursor.
+     * @param limit The maximum number of students on the page.
+     * @return The page and the cursor of the page after it.
+     * @throws IllegalArgumentException if the cursor is negative or the limit is not positive.
+     */
+    public Page<Student> listStudents(int cursor, int limit) {
+        return LIST_STUDENTS_PAGE.time(() -> {
+            synchronized (this) {
+                return Page.of(students.snapshot(), cursor, limit);
+            }
+        });
+    }
+
+    /**
+     * Returns every student as a lazy stream, fetched a page at a time while it is consumed.
+     * Students added while the stream is open are included if it has not yet passed their position.
+     * @param pageSize The number of students fetched at once.
+     */
+    public Stream<Student> streamStudents(int pageSize) {
+        return Page.stream(this::listStudents, pageSize);
     }
 
     /**
@@ -48,9 +156,50 @@ public class StudentService {
      * @return An Optional containing the found Student, or an empty Optional if no student is found.
      */
     public Optional<Student> findStudentByRegNo(String regNo) {
-        return students.stream()
-                .filter(s -> s.getRegNo().equals(regNo))
-                .findFirst();
+        return FIND_BY_REG_NO.time(() -> regNo == null ? Optional.empty() : Optional.ofNullable(studentsByRegNo.get(regNo)));
+    }
+
+    /**
+     * Finds all students with the given status, in the order they were added.
+     *
+     * @param status The status to filter by.
+     * @return A list of matching students.
+     */
+    public List<Student> findStudentsByStatus(Student.Status status) {
+        return FIND_BY_STATUS.time(() -> {
+            synchronized (this) {
+                return new ArrayList<>(studentsByStatus.get(status));
+            }
+        });
+    }
+
+    /**
+     * Finds all students registered with the given email address.
+     * The comparison ignores case and surrounding whitespace.
+     *
+     * @param email The email address to search for.
+     * @return A list of matching students, empty if none.
+     */
+    public List<Student> findStudentsByEmail(String email) {
+        return FIND_BY_EMAIL.time(() -> {
+            synchronized (this) {
+                Set<Student> matches = studentsByEmail.get(normalizeEmail(email));
+                return matches == null ? new ArrayList<>() : new ArrayList<>(matches);
+            }
+        });
+    }
+
+    /**
+     * Returns the number of students in the system.
+     *
+     * @return The student count.
+     */
+    public int getStudentCount() {
+        return GET_COUNT.time(() -> {
+            synchronized (this) {
+                return students.size();
+            }
+        });
     }
 
     /**
@@ -61,10 +210,20 @@ public class StudentService {
      * @throws IllegalArgumentException if no student is found with the given registration number.
      */
     public void updateStudentEmail(String regNo, String newEmail) {
-        findStudentByRegNo(regNo).ifPresentOrElse(
-                s -> s.setEmail(newEmail),
-                () -> { throw new IllegalArgumentException("Student not found"); }
-        );
+        UPDATE_EMAIL.time(() -> {
+            synchronized (this) {
+                findStudentByRegNo(regNo).ifPresentOrElse(
+                        s -> {
+                            unindexEmail(s);
+                            s.setEmail(newEmail);
+                            indexEmail(s);
+                            notifyUpdated(s);
+                        },
+                        () -> { throw new IllegalArgumentException("Student not found"); }
+                );
+            }
+            completeChanges();
+        });
     }
 
     /**
@@ -74,9 +233,80 @@ public class StudentService {
      * @throws IllegalArgumentException if no student is found with the given registration number.
      */
     public void deactivateStudent(String regNo) {
-        findStudentByRegNo(regNo).ifPresentOrElse(
-                s -> s.setStatus(Student.Status.DEACTIVATED),
-                () -> { throw new IllegalArgumentException("Student not found"); }
-        );
+        DEACTIVATE.time(() -> {
+            synchronized (this) {
+                findStudentByRegNo(regNo).ifPresentOrElse(
+                        s -> {
+                            studentsByStatus.get(s.getStatus()).remove(s);
+                            s.setStatus(Student.Status.DEACTIVATED);
+                            studentsByStatus.get(s.getStatus()).add(s);
+                            notifyUpdated(s);
+                        },
+                        () -> { throw new IllegalArgumentException("Student not found"); }
+                );
+            }
+            completeChanges();
+        });
+    }
+
+    /**
+     * Private helper to add a new student to the list and every index, and tell the listeners.
+     */
+    private void insert(Student student) {
+        students.add(student);
+        studentsByRegNo.put(student.getRegNo(), student);
+        studentsByStatus.get(student.getStatus()).add(student);
+        indexEmail(student);
+        for (StudentListener listener : listeners) {
+            listener.onStudentAdded(student);
+        }
+    }
+
+    /**
+     * Private helper to tell the listeners a student has changed.
+     */
+    private void notifyUpdated(Student student) {
+        for (StudentListener listener : listeners) {
+            listener.onStudentUpdated(student);
+        }
+    }
+
+    /**
+     * Private helper to tell the listeners a call's changes are made. Called
+     * outside the lock, so a listener waiting for the disk holds up only this call.
+     */
+    private void completeChanges() {
+        for (StudentListener listener : listeners) {
+            listener.onChangesComplete();
+        }
+    }
+
+    /**
+     * Private helper to add a student to the email index.
+     */
+    private void indexEmail(Student student) {
+        studentsByEmail.computeIfAbsent(normalizeEmail(student.getEmail()), k -> new LinkedHashSet<>())
+                .add(student);
+    }
+
+    /**
+     * Private helper to remove a student from the email index.
+     */
+    private void unindexEmail(Student student) {
+        String key = normalizeEmail(student.getEmail());
+        Set<Student> matches = studentsByEmail.get(key);
+        if (matches != null) {
+            matches.remove(student);
+            if (matches.isEmpty()) {
+                studentsByEmail.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Private helper to normalize an email address for indexing.
+     */
+    private static String normalizeEmail(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
     }
 }
\ No newline at end of file
@@ -1,14 +1,50 @@
 // CCRM/src/edu/ccrm/service/TranscriptService.java
 package edu.ccrm.service;
 
+import edu.ccrm.domain.Course;
 import edu.ccrm.domain.Enrollment;
 import edu.ccrm.domain.Grade;
+import edu.ccrm.metrics.Metrics;
+import edu.ccrm.metrics.OperationMetrics;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Provides services related to generating student transcripts and calculating GPA.
+ *
+ * When registered as a listener on EnrollmentService, it keeps running totals
+ * of grade points x credits and credits for each student, so a student's GPA
+ * can be read without looking at their enrollments at all.
  */
-public class TranscriptService {
+public class TranscriptService implements EnrollmentListener {
+    private static final OperationMetrics GPA_FROM_ENROLLMENTS = Metrics.operation("TranscriptService", "computeGPA(enrollments)");
+    private static final OperationMetrics GPA_FROM_TOTALS = Metrics.operation("TranscriptService", "computeGPA(regNo)");
+    private static final OperationMetrics ALL_GPAS = Metrics.operation("TranscriptService", "computeAllGPAs");
+    private static final OperationMetrics TRANSCRIPT_VIEW = Metrics.operation("TranscriptService", "generateTranscriptView");
+    private static final String RULE = "--------------------------------------------------\n";
+
+    private Map<String, GpaTotals> totalsByStudent = new ConcurrentHashMap<>();
+
+    /**
+     * Running GPA totals for one student, counting only passed, graded courses.
+     * Synchronized so a reader never sees points and credits from different updates.
+     */
+    private static class GpaTotals {
+        private long points;
+        private int credits;
+
+        synchronized void add(long pointsDelta, int creditsDelta) {
+            points += pointsDelta;
+            credits += creditsDelta;
+        }
+
+        synchronized double gpa() {
+            // Avoid division by zero if a student has no credits from passed courses.
+            return credits == 0 ? 0.0 : (double) points / credits;
+        }
+    }
 
     /**
      * Computes the Grade Point Average (GPA) from a list of enrollments.
@@ -18,25 +54,88 @@ public class TranscriptService {
      * @return The calculated GPA as a double. Returns 0.0 if there are no graded courses.
      */
     public double computeGPA(List<Enrollment> enrollments) {
-        if (enrollments == null || enrollments.isEmpty()) {
-            return 0.0;
-        }
+        return GPA_FROM_ENROLLMENTS.time(() -> {
+            if (enrollments == null || enrollments.isEmpty()) {
+                return 0.0;
+            }
 
-        double totalPoints = 0;
-        int totalCredits = 0;
+            double totalPoints = 0;
+            int totalCredits = 0;
 
-        for (Enrollment e : enrollments) {
-            Grade grade = e.getGrade();
-            // Only include courses that have been graded and passed in the GPA calculation.
-            if (grade != Grade.NOT_GRADED && grade != Grade.F) {
-                int points = grade.getGradePoint();
-                int credits = e.getCourse().getCredits();
-                totalPoints += points * credits;
-                totalCredits += credits;
+            for (Enrollment e : enrollments) {
+                Grade grade = e.getGrade();
+                // Only include courses that have been graded and passed in the GPA calculation.
+                if (countsTowardGPA(grade)) {
+                    int points = grade.getGradePoint();
+                    int credits = e.getCourse().getCredits();
+                    totalPoints += points * credits;
+                    totalCredits += credits;
+                }
+            }
+            // Avoid division by zero if a student has no credits from passed courses.
+            return totalCredits == 0 ? 0.0 : totalPoints / totalCredits;
+        });
+    }
+
+    /**
+     * Returns a student's GPA from the running totals, in constant time.
+     * Uses the same rules as computeGPA(List): F and NOT_GRADED are excluded.
+     *
+     * @param regNo The student's registration number.
+     * @return The GPA, or 0.0 if the student has no graded, passed courses.
+     */
+    public double computeGPA(String regNo) {
+        return GPA_FROM_TOTALS.time(() -> {
+            GpaTotals totals = totalsByStudent.get(regNo);
+            return totals == null ? 0.0 : totals.gpa();
+        });
+    }
+
+    /**
+     * Returns the GPA of every student who has ever been enrolled, computed from
+     * the running totals without touching any enrollment records.
+     *
+     * @return A map from registration number to GPA.
+     */
+    public Map<String, Double> computeAllGPAs() {
+        return ALL_GPAS.time(() -> {
+            Map<String, Double> result = new LinkedHashMap<>();
+            for (Map.Entry<String, GpaTotals> entry : totalsByStudent.entrySet()) {
+                result.put(entry.getKey(), entry.getValue().gpa());
             }
+            return result;
+        });
+    }
+
+    @Override
+    public void onEnrolled(Enrollment enrollment) {
+        apply(enrollment, enrollment.getGrade(), 1);
+    }
+
+    @Override
+    public void onUnenrolled(Enrollment enrollment) {
+        apply(enrollment, enrollment.getGrade(), -1);
+    }
+
+    @Override
+    public void onGradeChanged(Enrollment enrollment, Grade oldGrade) {
+        apply(enrollment, oldGrade, -1);
+        apply(enrollment, enrollment.getGrade(), 1);
+    }
+
+    /**
+     * Adds (sign 1) or removes (sign -1) one enrollment's contribution to its student's totals.
+     */
+    private void apply(Enrollment enrollment, Grade grade, int sign) {
+        GpaTotals totals = totalsByStudent.computeIfAbsent(enrollment.getStudent().getRegNo(), k -> new GpaTotals());
+        if (countsTowardGPA(grade)) {
+            int credits = enrollment.getCourse().getCredits();
+            totals.add((long) sign * grade.getGradePoint() * credits, sign * credits);
         }
-        // Avoid division by zero if a student has no credits from passed courses.
-        return totalCredits == 0 ? 0.0 : totalPoints / totalCredits;
+    }
+
+    private static boolean countsTowardGPA(Grade grade) {
+        return grade != null && grade != Grade.NOT_GRADED && grade != Grade.F;
     }
 
     /**
@@ -47,19 +146,65 @@ public class TranscriptService {
      * @return A formatted string containing the transcript details and GPA.
      */
     public String generateTranscriptView(String studentName, List<Enrollment> enrollments) {
-        StringBuilder sb = new StringBuilder();
+        return TRANSCRIPT_VIEW.time(() -> {
+            StringBuilder sb = new StringBuilder();
+            appendTranscriptView(sb, studentName, enrollments);
+            return sb.toString();
+        });
+    }
+
+    /**
+     * Appends a student's transcript to a buffer, exactly as generateTranscriptView
+     * formats it but without String.format, so batch exports can render many
+     * transcripts into one reused buffer. Safe to call from several threads at once.
+     *
+     * @param sb The buffer to append to.
+     * @param studentName The full name of the student.
+     * @param enrollments A list of the student's enrollments.
+     */
+    public void appendTranscriptView(StringBuilder sb, String studentName, List<Enrollment> enrollments) {
         sb.append("\n--- Transcript for: ").append(studentName).append(" ---\n");
-        sb.append("--------------------------------------------------\n");
+        sb.append(RULE);
+        long points = 0;
+        int credits = 0;
         for (Enrollment e : enrollments) {
-            sb.append(String.format("%-10s | %-30s | Grade: %s\n",
-                    e.getCourse().getCode(),
-                    e.getCourse().getTitle(),
-                    e.getGrade()));
+            Course course = e.getCourse();
+            Grade grade = e.getGrade();
+            pad(sb, course.getCode(), 10).append(" | ");
+            pad(sb, course.getTitle(), 30).append(" | Grade: ").append(grade).append('\n');
+            if (countsTowardGPA(grade)) {
+                points += (long) grade.getGradePoint() * course.getCredits();
+                credits += course.getCredits();
+            }
+        }
+        sb.append(RULE);
+        sb.append("Cumulative GPA: ");
+        appendTwoDecimals(sb, points, credits).append('\n');
+        sb.append(RULE);
+    }
+
+    /**
+     * Appends a value left-aligned in a field of the given width, like %-Ns.
+     */
+    private static StringBuilder pad(StringBuilder sb, String value, int width) {
+        String text = String.valueOf(value);
+        sb.append(text);
+        for (int i = text.length(); i < width; i++) {
+            sb.append(' ');
+        }
+        return sb;
+    }
+
+    /**
+     * Appends points / credits rounded half-up to two decimals, like %.2f, or 0.00 with no credits.
+     */
+    private static StringBuilder appendTwoDecimals(StringBuilder sb, long points, int credits) {
+        long hundredths = credits == 0 ? 0 : (points * 200 + credits) / (2L * credits);
+        sb.append(hundredths / 100).append('.');
+        long fraction = hundredths % 100;
+        if (fraction < 10) {
+            sb.append('0');
         }
-        double gpa = computeGPA(enrollments);
-        sb.append("--------------------------------------------------\n");
-        sb.append(String.format("Cumulative GPA: %.2f\n", gpa));
-        sb.append("--------------------------------------------------\n");
-        return sb.toString();
+        return sb.append(fraction);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,183 @@
+package edu.ccrm.util;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrent pool that hands out one shared instance for equal strings,
+ * so values repeated across many objects (instructor names, departments)
+ * are stored once instead of once per row.
+ *
+ * The pool only holds its strings weakly: once no object uses a value any
+ * more, the garbage collector reclaims it and its pool entry is dropped.
+ * Each field gets its own named pool, which counts how many duplicate copies
+ * it replaced and roughly how many bytes those copies took.
+ *
+ * A pool entry costs about 70 bytes, more than most strings it could save,
+ * so a field whose values turn out to be mostly unique is not worth pooling.
+ * After its first 10,000 lookups a pool checks this, and if fewer than half
+ * were duplicates it empties itself and passes every later value through.
+ */
+public final class StringPool {
+    private static final Map<String, StringPool> POOLS = new ConcurrentHashMap<>();
+    private static final int SAMPLE_SIZE = 10_000;
+
+    private final String name;
+    private final Map<Ref, Ref> entries = new ConcurrentHashMap<>();
+    private final ReferenceQueue<String> cleared = new ReferenceQueue<>();
+    private final AtomicLong lookups = new AtomicLong();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder bytesSaved = new LongAdder();
+    private volatile boolean bypassed;
+
+    /**
+     * A weak reference to a pooled string that compares by the string's
+     * content while it is alive, and only by identity once it is cleared.
+     */
+    private static final class Ref extends WeakReference<String> {
+        private final int hash;
+
+        Ref(String value, ReferenceQueue<String> queue) {
+            super(value, queue);
+            this.hash = value.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Ref)) return false;
+            String value = get();
+            return value != null && value.equals(((Ref) o).get());
+        }
+    }
+
+    private StringPool(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the pool for a field, creating it on first use.
+     * @param name The field, for example "Course.instructor".
+     * @return The shared pool with that name.
+     */
+    public static StringPool named(String name) {
+        return POOLS.computeIfAbsent(name, StringPool::new);
+    }
+
+    /**
+     * Returns the pooled instance equal to value, adding value to the pool if
+     * there is none yet.
+     * @param value The string to canonicalize; may be null.
+     * @return An equal string, shared with every other caller that passed an equal value.
+     */
+    public String canonicalize(String value) {
+        if (value == null || bypassed) {
+            return value;
+        }
+        expungeCleared();
+        if (lookups.incrementAndGet() == SAMPLE_SIZE && duplicates.sum() * 2 < SAMPLE_SIZE) {
+            bypassed = true;
+            entries.clear();
+            return value;
+        }
+        Ref probe = new Ref(value, null);
+        while (true) {
+            Ref existing = entries.get(probe);
+            String canonical = existing == null ? null : existing.get();
+            if (canonical == null) {
+                Ref added = new Ref(value, cleared);
+                existing = entries.putIfAbsent(added, added);
+                if (existing == null) {
+                    return value;
+                }
+                canonical = existing.get();
+                if (canonical == null) {
+                    // Lost a race with the garbage collector; try again.
+                    continue;
+                }
+            }
+            if (canonical != value) {
+                duplicates.increment();
+                bytesSaved.add(estimateSize(canonical));
+            }
+            return canonical;
+        }
+    }
+
+    public String getName() { return name; }
+    public long getLookups() { return lookups.get(); }
+    public long getDuplicates() { return duplicates.sum(); }
+    public long getBytesSaved() { return bytesSaved.sum(); }
+
+    /**
+     * @return true if the pool found the field's values mostly unique and stopped pooling them.
+     */
+    public boolean isBypassed() { return bypassed; }
+
+    /**
+     * @return The number of distinct strings currently in the pool.
+     */
+    public int size() {
+        expungeCleared();
+        return entries.size();
+    }
+
+    /**
+     * Returns a table of every pool: lookups, distinct values and the
+     * duplicate copies (and their approximate bytes) it replaced.
+     * @return The formatted table.
+     */
+    public static String report() {
+        List<StringPool> pools = new ArrayList<>(POOLS.values());
+        pools.sort((a, b) -> a.name.compareTo(b.name));
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-22s %12s %10s %12s %14s%n", "Field", "Lookups", "Distinct", "Duplicates", "Bytes saved"));
+        long totalSaved = 0;
+        for (StringPool pool : pools) {
+            totalSaved += pool.getBytesSaved();
+            sb.append(String.format("%-22s %,12d %10s %,12d %,14d%n", pool.name, pool.getLookups(),
+                    pool.isBypassed() ? "unique" : String.format("%,d", pool.size()), pool.getDuplicates(), pool.getBytesSaved()));
+        }
+        sb.append(String.format("%-22s %12s %10s %12s %,14d%n", "Total", "", "", "", totalSaved));
+        return sb.toString();
+    }
+
+    /**
+     * Private helper that drops the entries whose strings have been garbage collected.
+     */
+    private void expungeCleared() {
+        Object ref;
+        while ((ref = cleared.poll()) != null) {
+            // A cleared Ref only equals itself, so this removes exactly that entry.
+            entries.remove(ref);
+        }
+    }
+
+    /**
+     * Private helper that estimates the heap taken by a string: a 24-byte
+     * String object plus its byte array (16-byte header, one byte per
+     * character, or two if any character is outside Latin-1), rounded to 8 bytes.
+     */
+    private static long estimateSize(String value) {
+        int bytesPerChar = 1;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0xFF) {
+                bytesPerChar = 2;
+                break;
+            }
+        }
+        long array = 16 + (long) value.length() * bytesPerChar;
+        return 24 + ((array + 7) & ~7L);
+    }
+}